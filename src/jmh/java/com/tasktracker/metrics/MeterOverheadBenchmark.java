@@ -0,0 +1,64 @@
+package com.tasktracker.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the timers added to every request and repository call, configured like
+ * http.server.requests in application.yml. "lookup" resolves the timer by name and tags on each
+ * call the way the Spring MVC and repository instrumentation does; "cached" records into a
+ * pre-registered timer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeterOverheadBenchmark {
+
+    private static final Tags TAGS = Tags.of("method", "GET", "uri", "/api/tasks", "status", "200",
+            "outcome", "SUCCESS", "exception", "none");
+
+    @Param({"noop", "prometheus"})
+    private String metrics;
+
+    private MeterRegistry registry;
+    private Timer timer;
+
+    @Setup
+    public void setUp() {
+        registry = metrics.equals("prometheus") ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new CompositeMeterRegistry();
+        timer = timer();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void cached() {
+        timer.record(1_500_000, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void lookup() {
+        timer().record(1_500_000, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer() {
+        return Timer.builder("http.server.requests")
+                .tags(TAGS)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+}
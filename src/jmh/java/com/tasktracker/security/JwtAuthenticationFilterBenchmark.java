@@ -0,0 +1,79 @@
+package com.tasktracker.security;
+
+import com.tasktracker.entity.User;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The authentication path every API request takes: header parsing, token verification,
+ * principal lookup and building the security context. The principal lookup is an in-memory
+ * stub, as it is served from the principal cache in production. The metrics parameter compares
+ * the outcome counters against a registry that records nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @Param({"noop", "prometheus"})
+    private String metrics;
+
+    private JwtAuthenticationFilter filter;
+    private String validHeader;
+    private String forgedHeader;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = JwtServiceBenchmark.jwtService(10_000);
+        User user = JwtServiceBenchmark.user();
+        filter = new JwtAuthenticationFilter(jwtService, username -> user, metrics.equals("prometheus")
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new CompositeMeterRegistry());
+        validHeader = "Bearer " + jwtService.generateToken(user);
+
+        String token = jwtService.generateToken(user);
+        forgedHeader = "Bearer " + token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+    }
+
+    @Benchmark
+    public Authentication validToken() throws Exception {
+        return authenticate(validHeader);
+    }
+
+    @Benchmark
+    public Authentication forgedToken() throws Exception {
+        return authenticate(forgedHeader);
+    }
+
+    @Benchmark
+    public Authentication missingHeader() throws Exception {
+        return authenticate(null);
+    }
+
+    private Authentication authenticate(String authorization) throws Exception {
+        // A fresh request each time: OncePerRequestFilter skips requests it has already seen
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
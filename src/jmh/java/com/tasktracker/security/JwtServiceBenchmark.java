@@ -0,0 +1,77 @@
+package com.tasktracker.security;
+
+import com.tasktracker.entity.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtServiceBenchmark {
+
+    static final String SECRET = "dGhpc2lzYXZlcnlsb25nc2VjcmV0a2V5Zm9yand0dG9rZW5nZW5lcmF0aW9uYW5kdmFsaWRhdGlvbjEyMzQ1Njc4OQ==";
+    private static final int DISTINCT_TOKENS = 100_000;
+
+    private JwtService jwtService;
+    // Cache of one entry, so cycling through distinct tokens always verifies the signature
+    private JwtService uncachedJwtService;
+    private User user;
+    private String token;
+    private String[] distinctTokens;
+    private int next;
+
+    static JwtService jwtService(long cacheMaxSize) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(service, "cacheMaxSize", cacheMaxSize);
+        service.init();
+        return service;
+    }
+
+    static User user() {
+        return User.builder()
+                .id(1L)
+                .name("Benchmark User")
+                .email("benchmark@example.com")
+                .password("encodedPassword")
+                .build();
+    }
+
+    @Setup
+    public void setUp() {
+        jwtService = jwtService(10_000);
+        uncachedJwtService = jwtService(1);
+        user = user();
+        token = jwtService.generateToken(user);
+        distinctTokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            distinctTokens[i] = jwtService.generateToken(Map.of("n", i), user);
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateCachedToken() {
+        Claims claims = jwtService.parseToken(token);
+        return jwtService.isTokenValid(claims, user);
+    }
+
+    @Benchmark
+    public boolean validateUncachedToken() {
+        String candidate = distinctTokens[next++ % DISTINCT_TOKENS];
+        Claims claims = uncachedJwtService.parseToken(candidate);
+        return uncachedJwtService.isTokenValid(claims, user);
+    }
+}
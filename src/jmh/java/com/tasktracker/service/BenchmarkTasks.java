@@ -0,0 +1,45 @@
+package com.tasktracker.service;
+
+import com.tasktracker.entity.Task;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkTasks {
+
+    static final User USER = User.builder().id(1L).name("Benchmark User").email("benchmark@example.com").build();
+
+    private static final LocalDateTime NEWEST = LocalDateTime.of(2024, 6, 1, 12, 0);
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    private BenchmarkTasks() {
+    }
+
+    /**
+     * Tasks in the keyset order the repository returns them: newest first, ids descending.
+     */
+    static List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime createdAt = NEWEST.minusMinutes(i);
+            tasks.add(Task.builder()
+                    .id((long) (count - i))
+                    .title("Prepare quarterly report " + i)
+                    .description("Collect the numbers from finance, check them against last quarter and "
+                            + "send the draft to the team for review before the meeting #" + i)
+                    .status(STATUSES[i % STATUSES.length])
+                    .priority(PRIORITIES[i % PRIORITIES.length])
+                    .createdAt(createdAt)
+                    .updatedAt(createdAt.plusHours(1))
+                    .dueDate(i % 4 == 0 ? null : createdAt.plusDays(7))
+                    .user(USER)
+                    .build());
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,58 @@
+package com.tasktracker.service;
+
+import com.tasktracker.dto.ExportFormat;
+import com.tasktracker.entity.Task;
+import com.tasktracker.repository.TaskRepository;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XLSX export of the whole task list. The repository is an in-memory stand-in that serves the
+ * same keyset chunks the database would, so the numbers cover workbook generation only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Thread)
+public class TaskExportBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private TaskExportService taskExportService;
+
+    @Setup
+    public void setUp() {
+        List<Task> tasks = BenchmarkTasks.tasks(rows);
+        TaskRepository repository = (TaskRepository) Proxy.newProxyInstance(TaskRepository.class.getClassLoader(),
+                new Class<?>[]{TaskRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "searchTasksFirstPage" -> page(tasks, 0, (Pageable) args[4]);
+                    // Ids descend from rows to 1, so the task after id n is at index rows - n + 1
+                    case "searchTasksAfter" -> page(tasks, rows - ((Long) args[5]).intValue() + 1, (Pageable) args[6]);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        taskExportService = new TaskExportService(repository, null, null, null,
+                new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    }
+
+    @Benchmark
+    public long exportExcel() throws IOException {
+        return taskExportService.write(ExportFormat.XLSX, BenchmarkTasks.USER, null, null, null,
+                OutputStream.nullOutputStream());
+    }
+
+    private static List<Task> page(List<Task> tasks, int from, Pageable pageable) {
+        return tasks.subList(Math.min(from, tasks.size()), Math.min(from + pageable.getPageSize(), tasks.size()));
+    }
+
+}
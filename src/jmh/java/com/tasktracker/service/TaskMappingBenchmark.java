@@ -0,0 +1,35 @@
+package com.tasktracker.service;
+
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.entity.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskMappingBenchmark {
+
+    private Task task;
+    private TaskDTO taskDTO;
+
+    @Setup
+    public void setUp() {
+        task = BenchmarkTasks.tasks(1).get(0);
+        taskDTO = TaskMapper.toDTO(task);
+    }
+
+    @Benchmark
+    public TaskDTO toDTO() {
+        return TaskMapper.toDTO(task);
+    }
+
+    @Benchmark
+    public Task toEntity() {
+        return TaskMapper.toEntity(taskDTO);
+    }
+}
@@ -0,0 +1,60 @@
+package com.tasktracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.tasktracker.dto.TaskDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Serializing task list responses, with every property and with a sparse fieldset
+ * (fields=title,status,priority,dueDate).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskSerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int size;
+
+    private List<TaskDTO> tasks;
+    private ObjectWriter fullWriter;
+    private ObjectWriter sparseWriter;
+
+    @Setup
+    public void setUp() {
+        // Configured like the application's ObjectMapper
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .filters(new SimpleFilterProvider().setFailOnUnknownId(false))
+                .build();
+        fullWriter = objectMapper.writer();
+        sparseWriter = objectMapper.writer(new SimpleFilterProvider().addFilter(TaskDTO.FIELD_FILTER,
+                SimpleBeanPropertyFilter.filterOutAllExcept("title", "status", "priority", "dueDate")));
+
+        tasks = BenchmarkTasks.tasks(size).stream().map(TaskMapper::toDTO).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void serializeFull() throws IOException {
+        fullWriter.writeValue(OutputStream.nullOutputStream(), tasks);
+    }
+
+    @Benchmark
+    public void serializeSparse() throws IOException {
+        sparseWriter.writeValue(OutputStream.nullOutputStream(), tasks);
+    }
+}
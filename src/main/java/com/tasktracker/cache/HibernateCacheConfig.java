@@ -0,0 +1,83 @@
+package com.tasktracker.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Caffeine caches behind Hibernate's second-level cache, handed to Hibernate through JCache.
+ * Every region is created here with its own size and TTL, and Hibernate is set to fail on a
+ * region it does not find, so nothing ends up in an unbounded cache by accident.
+ * <p>
+ * The caches are local to the instance: a write made through another instance is only seen
+ * here once the entry expires. Hits, misses, puts and evictions are published per region as
+ * cache.gets, cache.puts and cache.evictions; Hibernate's own statistics add
+ * hibernate.second.level.cache.requests and the query and natural-id cache counters.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    // Region names used in the @Cache and @NaturalIdCache annotations on Task and User
+    private static final String TASKS = "tasks";
+    private static final String USERS = "users";
+    private static final String USERS_BY_EMAIL = "users-by-email";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            MeterRegistry meterRegistry,
+            @Value("${hibernate-cache.tasks.max-size}") long taskMaxSize,
+            @Value("${hibernate-cache.tasks.ttl}") Duration taskTtl,
+            @Value("${hibernate-cache.users.max-size}") long userMaxSize,
+            @Value("${hibernate-cache.users.ttl}") Duration userTtl,
+            @Value("${hibernate-cache.queries.max-size}") long queryMaxSize,
+            @Value("${hibernate-cache.queries.ttl}") Duration queryTtl) {
+        // A manager of its own rather than the shared default one, so two contexts in one JVM, as
+        // in tests, do not clash over the region names
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("hibernate-cache-" + UUID.randomUUID()), provider.getDefaultClassLoader());
+        region(cacheManager, meterRegistry, TASKS, taskMaxSize, taskTtl);
+        region(cacheManager, meterRegistry, USERS, userMaxSize, userTtl);
+        region(cacheManager, meterRegistry, USERS_BY_EMAIL, userMaxSize, userTtl);
+        region(cacheManager, meterRegistry, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                queryMaxSize, queryTtl);
+        // One entry per table with the time of its last write; cached query results are checked
+        // against it, so it must outlive them and is never expired
+        region(cacheManager, meterRegistry, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                1000, null);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static void region(CacheManager cacheManager, MeterRegistry meterRegistry, String name,
+                               long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        Cache<Object, Object> cache = cacheManager.createCache(name, configuration);
+        JCacheMetrics.monitor(meterRegistry, cache);
+    }
+}
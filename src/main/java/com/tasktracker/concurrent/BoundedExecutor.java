@@ -0,0 +1,126 @@
+package com.tasktracker.concurrent;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs at most {@code concurrency} tasks at a time and lets up to {@code queueCapacity} more
+ * wait; anything beyond that is rejected with {@link RejectedExecutionException}.
+ * <p>
+ * On platform threads this is a fixed pool with a bounded queue. With virtual threads every
+ * task starts on its own virtual thread and waits for a slot there, so queued work does not
+ * hold a platform thread while the limits stay the same.
+ */
+public class BoundedExecutor implements Executor {
+
+    private final int concurrency;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor pool;
+    private final VirtualThreadTaskExecutor virtualThreads;
+    private final Semaphore admitted;
+    private final Semaphore slots;
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    public BoundedExecutor(String threadNamePrefix, int concurrency, int queueCapacity, boolean useVirtualThreads) {
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        if (useVirtualThreads) {
+            this.pool = null;
+            this.virtualThreads = new VirtualThreadTaskExecutor(threadNamePrefix);
+            this.admitted = new Semaphore(concurrency + queueCapacity);
+            this.slots = new Semaphore(concurrency);
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.pool = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.virtualThreads = null;
+            this.admitted = null;
+            this.slots = null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (pool != null) {
+            pool.execute(task);
+            return;
+        }
+        if (shutdown || !admitted.tryAcquire()) {
+            throw new RejectedExecutionException("Executor is full or shut down");
+        }
+        try {
+            virtualThreads.execute(() -> runWhenSlotFree(task));
+        } catch (RuntimeException e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    public int getActiveCount() {
+        return pool != null ? pool.getActiveCount() : active.get();
+    }
+
+    public int getQueueSize() {
+        if (pool != null) {
+            return pool.getQueue().size();
+        }
+        return concurrency + queueCapacity - admitted.availablePermits() - active.get();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    public void shutdownNow() {
+        shutdown = true;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void runWhenSlotFree(Runnable task) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            admitted.release();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        active.incrementAndGet();
+        try {
+            if (!shutdown) {
+                task.run();
+            }
+        } finally {
+            active.decrementAndGet();
+            slots.release();
+            admitted.release();
+        }
+    }
+}
@@ -3,11 +3,13 @@ package com.tasktracker.controller;
 import com.tasktracker.dto.AuthRequest;
 import com.tasktracker.dto.AuthResponse;
 import com.tasktracker.dto.RegisterRequest;
+import com.tasktracker.entity.User;
 import com.tasktracker.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -26,4 +28,10 @@ public class AuthController {
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
         return ResponseEntity.ok(authService.login(request));
     }
+
+    // Needs the Authorization header; the token it returns goes in the stream URL as access_token
+    @PostMapping("/stream-token")
+    public ResponseEntity<AuthResponse> streamToken(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(authService.streamToken(user));
+    }
 }
@@ -0,0 +1,95 @@
+package com.tasktracker.controller;
+
+import com.tasktracker.dto.ExportFormat;
+import com.tasktracker.dto.ExportJobDTO;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.service.ExportJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.format.DateTimeFormatter;
+
+@RestController
+@RequestMapping("/api/tasks/exports")
+@RequiredArgsConstructor
+public class ExportJobController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ExportJobService exportJobService;
+
+    @PostMapping
+    public ResponseEntity<ExportJobDTO> createExport(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) TaskStatus status,
+            @RequestParam(required = false) TaskPriority priority,
+            @RequestParam(required = false) String format) {
+        ExportJobDTO job = exportJobService.createExport(ExportFormat.from(format), search, status, priority);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJobDTO> getExport(@PathVariable String id) {
+        return ResponseEntity.ok(exportJobService.getExport(id));
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String id, HttpServletRequest request) {
+        ExportJobService.ExportFile file = exportJobService.getExportFile(id);
+
+        String filename = "tasks_" + file.createdAt().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + "." + file.format().getExtension();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(file.format().getContentType()));
+        headers.setContentDispositionFormData("attachment", filename);
+        headers.setContentLength(file.size());
+
+        // Let Tomcat transfer the file with FileChannel.transferTo once the handler returns. Tomcat
+        // opens the file right after, which the cleanup grace after the lease covers; a file that is
+        // open keeps streaming when it is deleted
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            try (file) {
+                request.setAttribute(SENDFILE_FILENAME, file.path().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, file.size());
+            }
+            return new ResponseEntity<>(headers, HttpStatus.OK);
+        }
+
+        // Otherwise the lease lasts until the body has been written and the stream closed
+        InputStream content;
+        try {
+            content = Files.newInputStream(file.path());
+        } catch (IOException e) {
+            file.close();
+            throw new UncheckedIOException(e);
+        }
+        return new ResponseEntity<>(new InputStreamResource(new FilterInputStream(content) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    file.close();
+                }
+            }
+        }), headers, HttpStatus.OK);
+    }
+}
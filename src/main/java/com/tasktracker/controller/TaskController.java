@@ -1,21 +1,37 @@
 package com.tasktracker.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.tasktracker.dto.BulkTaskResponse;
+import com.tasktracker.dto.ExportFormat;
+import com.tasktracker.dto.TaskChanges;
 import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.dto.TaskField;
+import com.tasktracker.dto.TaskPage;
+import com.tasktracker.dto.TaskStatsDTO;
 import com.tasktracker.entity.TaskPriority;
 import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.service.TaskChangeFeed;
 import com.tasktracker.service.TaskService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/tasks")
@@ -23,11 +39,47 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:5173")
 public class TaskController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final TaskService taskService;
+    private final TaskChangeFeed taskChangeFeed;
 
     @GetMapping
-    public ResponseEntity<List<TaskDTO>> getAllTasks() {
-        return ResponseEntity.ok(taskService.getAllTasks());
+    public ResponseEntity<MappingJacksonValue> getAllTasks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        Set<TaskField> taskFields = TaskField.parse(fields);
+        return taskService.readWithDataETag(dataVariant(request), eTag -> {
+            if (request.checkNotModified(eTag)) {
+                return null;
+            }
+            if (cursor == null && limit == null) {
+                return ok(eTag).body(withFields(taskService.getAllTasks(taskFields), taskFields));
+            }
+            return pageResponse(taskService.getTasksPage(cursor, limit, taskFields), taskFields, eTag);
+        });
+    }
+
+    // Pushes created/updated/deleted events after commit. Browsers open it with
+    // new EventSource("/api/tasks/stream?access_token=" + token), the token from
+    // POST /api/auth/stream-token. EventSource reconnects by itself, sending Last-Event-ID, only
+    // while that token is valid; once it has expired the reconnect gets 401 and the EventSource
+    // closes, so the client fetches a new token and opens a new one with ?lastEventId= to resume.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "lastEventId", required = false) String resumeFrom) {
+        return taskChangeFeed.subscribe(lastEventId != null ? lastEventId : resumeFrom);
+    }
+
+    // Offline clients catch up from their last token instead of downloading the whole list again
+    @GetMapping("/changes")
+    public ResponseEntity<TaskChanges> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(taskService.getChanges(since, limit));
     }
 
     @GetMapping("/{id}")
@@ -35,12 +87,47 @@ public class TaskController {
         return ResponseEntity.ok(taskService.getTaskById(id));
     }
 
+    @GetMapping("/stats")
+    public ResponseEntity<TaskStatsDTO> getStats() {
+        return ResponseEntity.ok(taskService.getStats());
+    }
+
+    // Read over the user's due-date index a page at a time, so clients no longer download every
+    // task to find these; the next page's cursor comes back in X-Next-Cursor
+    @GetMapping("/overdue")
+    public ResponseEntity<List<TaskDTO>> getOverdueTasks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return duePageResponse(taskService.getOverdueTasks(cursor, limit));
+    }
+
+    @GetMapping("/due-soon")
+    public ResponseEntity<List<TaskDTO>> getDueSoonTasks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return duePageResponse(taskService.getDueSoonTasks(cursor, limit));
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<List<TaskDTO>> searchTasks(
+    public ResponseEntity<MappingJacksonValue> searchTasks(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) TaskStatus status,
-            @RequestParam(required = false) TaskPriority priority) {
-        return ResponseEntity.ok(taskService.searchTasks(search, status, priority));
+            @RequestParam(required = false) TaskPriority priority,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        Set<TaskField> taskFields = TaskField.parse(fields);
+        return taskService.readWithDataETag(dataVariant(request), eTag -> {
+            if (request.checkNotModified(eTag)) {
+                return null;
+            }
+            if (cursor == null && limit == null) {
+                return ok(eTag).body(withFields(taskService.searchTasks(search, status, priority, taskFields), taskFields));
+            }
+            return pageResponse(taskService.searchTasksPage(search, status, priority, cursor, limit, taskFields),
+                    taskFields, eTag);
+        });
     }
 
     @PostMapping
@@ -56,27 +143,102 @@ public class TaskController {
         return ResponseEntity.ok(taskService.updateTask(id, taskDTO));
     }
 
+    // Status-only changes from drag-and-drop send {"status": "..."} here instead of the whole task
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<TaskDTO> patchTask(
+            @PathVariable Long id,
+            @RequestBody JsonNode patch) {
+        return ResponseEntity.ok(taskService.patchTask(id, patch));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
         taskService.deleteTask(id);
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/bulk")
+    public ResponseEntity<BulkTaskResponse> getTasks(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(taskService.getTasks(ids));
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkTaskResponse> createTasks(@RequestBody List<TaskDTO> taskDTOs) {
+        return ResponseEntity.ok(taskService.createTasks(taskDTOs));
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkTaskResponse> updateTasks(@RequestBody List<TaskDTO> taskDTOs) {
+        return ResponseEntity.ok(taskService.updateTasks(taskDTOs));
+    }
+
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkTaskResponse> deleteTasks(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(taskService.deleteTasks(ids));
+    }
+
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportToExcel(
+    public ResponseEntity<StreamingResponseBody> exportTasks(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) TaskStatus status,
-            @RequestParam(required = false) TaskPriority priority) throws IOException {
+            @RequestParam(required = false) TaskPriority priority,
+            @RequestParam(required = false) String format) {
 
-        byte[] excelContent = taskService.exportToExcel(search, status, priority);
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody content = taskService.exportTasks(exportFormat, search, status, priority);
 
-        String filename = "tasks_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
+        String filename = "tasks_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + "." + exportFormat.getExtension();
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType()));
         headers.setContentDispositionFormData("attachment", filename);
-        headers.setContentLength(excelContent.length);
 
-        return new ResponseEntity<>(excelContent, headers, HttpStatus.OK);
+        return new ResponseEntity<>(content, headers, HttpStatus.OK);
+    }
+
+    // The tag covers the user's data version and the query, so polls answer 304 after one
+    // primary-key lookup instead of the list query
+    private static String dataVariant(WebRequest request) {
+        String path = request.getDescription(false);
+        return path + "?" + request.getParameterMap().entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + String.join(",", entry.getValue()))
+                .sorted()
+                .collect(Collectors.joining("&"));
+    }
+
+    // Caches may keep the response but must revalidate it with the ETag on every use
+    private ResponseEntity.BodyBuilder ok(String eTag) {
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+    }
+
+    private ResponseEntity<MappingJacksonValue> pageResponse(TaskPage page, Set<TaskField> fields, String eTag) {
+        ResponseEntity.BodyBuilder response = ok(eTag);
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(withFields(page.getItems(), fields));
+    }
+
+    // Due dates pass while a client polls, so these lists carry no ETag
+    private ResponseEntity<List<TaskDTO>> duePageResponse(TaskPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    // Without fields every property is written
+    private MappingJacksonValue withFields(List<TaskDTO> tasks, Set<TaskField> fields) {
+        MappingJacksonValue body = new MappingJacksonValue(tasks);
+        if (fields != null) {
+            Set<String> properties = fields.stream().map(TaskField::getProperty).collect(Collectors.toSet());
+            body.setFilters(new SimpleFilterProvider()
+                    .addFilter(TaskDTO.FIELD_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(properties)));
+        }
+        return body;
     }
 }
@@ -0,0 +1,53 @@
+package com.tasktracker.datasource;
+
+import com.tasktracker.entity.User;
+import com.tasktracker.event.TaskChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users wrote recently, so their reads stay on the primary until replicas have
+ * had time to catch up. Only writes made through this instance are known; a user whose next
+ * request lands on another instance may briefly read from a replica that is behind.
+ */
+@Component
+public class ReadYourWrites {
+
+    // User id to System.nanoTime() of their last write
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    @Value("${datasource.replicas.read-your-writes}")
+    private Duration window;
+
+    // Recorded when the write happens, not after commit, so no read can slip in between
+    @EventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        lastWrites.put(event.userId(), System.nanoTime());
+    }
+
+    public boolean requiresPrimary() {
+        Long userId = getCurrentUserId();
+        if (userId == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(userId);
+        return writtenAt != null && System.nanoTime() - writtenAt < window.toNanos();
+    }
+
+    void expire() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(writtenAt -> now - writtenAt >= window.toNanos());
+    }
+
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof User user ? user.getId() : null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.tasktracker.datasource;
+
+/**
+ * Pins the current thread to a shard for work that has no authenticated user to route by, such
+ * as scheduled jobs, export workers and logins. Takes precedence over the user's own shard.
+ * <p>
+ * The shard is read when a transaction takes its first connection, so it has to be set before
+ * the transaction starts: changing it inside a running transaction has no effect.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    @FunctionalInterface
+    public interface ShardCallable<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface ShardRunnable<E extends Exception> {
+        void run() throws E;
+    }
+
+    public static <T, E extends Exception> T call(int shard, ShardCallable<T, E> work) throws E {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static <E extends Exception> void run(int shard, ShardRunnable<E> work) throws E {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+}
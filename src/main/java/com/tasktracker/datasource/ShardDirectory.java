@@ -0,0 +1,210 @@
+package com.tasktracker.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Which shard holds each user, kept in the user_shards table on shard 0. Logins find the user
+ * here by email; requests route by the shard on their principal, which is checked against a
+ * cached copy of the user's entry. Every instance polls the table for entries fenced or moved
+ * since its last look and drops those, so a change made by another process is picked up within
+ * the poll interval while a request reads nothing from shard 0.
+ * User ids come from user_seq on shard 0, so they are unique across shards, and a new user is
+ * placed on the shard a hash of their id picks. Adding shards only changes where new users go.
+ */
+@Slf4j
+@Component
+public class ShardDirectory {
+
+    static final String USER_SEQUENCE = "user_seq";
+
+    private static final String PLACEMENT_COLUMNS = "user_id, shard, moving, version";
+    private static final RowMapper<Placement> PLACEMENT = (rs, rowNum) ->
+            new Placement(rs.getLong("user_id"), rs.getInt("shard"), rs.getBoolean("moving"), rs.getLong("version"));
+
+    private final int shardCount;
+    // Not the routed data source: directory reads and writes always go to shard 0's primary
+    private final JdbcTemplate jdbcTemplate;
+    // Declared so the migrations have run before this does
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${datasource.shards.directory-cache.max-size}")
+    private long cacheMaxSize;
+
+    @Value("${datasource.shards.directory-cache.ttl}")
+    private Duration cacheTtl;
+
+    @Value("${datasource.shards.directory-cache.poll-interval}")
+    private Duration pollInterval;
+
+    // Checked by every request; poll drops the entries fenced or moved elsewhere
+    private Cache<String, Placement> placementsByEmail;
+    // Used by background work that has a user id but no principal
+    private Cache<Long, Integer> shardsByUser;
+    // Database time of the last successful poll
+    private volatile LocalDateTime polledAt;
+
+    public ShardDirectory(ShardRoutingDataSource shards, EntityManagerFactory entityManagerFactory) {
+        this.shardCount = shards.size();
+        this.jdbcTemplate = new JdbcTemplate(shards.shard(0));
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Where a user is. {@code moving} is set while {@link ShardRebalancer} copies them, and
+     * {@code version} changes with every fence and move.
+     */
+    public record Placement(Long userId, int shard, boolean moving, long version) {
+    }
+
+    @PostConstruct
+    void init() {
+        placementsByEmail = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        shardsByUser = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        polledAt = databaseTime();
+        // Users registered before the directory got their ids from the identity column
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(user_id), 0) FROM user_shards", Long.class);
+        Long next = jdbcTemplate.queryForObject("SELECT nextval('" + USER_SEQUENCE + "')", Long.class);
+        if (maxId != null && next != null && next <= maxId) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + USER_SEQUENCE + " RESTART WITH " + (maxId + 1));
+            log.info("Moved {} past existing user ids, restarting at {}", USER_SEQUENCE, maxId + 1);
+        }
+    }
+
+    /**
+     * Hands out an id for a new user and records the shard it goes to. Throws
+     * {@link org.springframework.dao.DuplicateKeyException} when the email is already taken on
+     * any shard.
+     */
+    public Placement register(String email) {
+        Long userId = jdbcTemplate.queryForObject("SELECT nextval('" + USER_SEQUENCE + "')", Long.class);
+        int shard = homeShard(userId);
+        jdbcTemplate.update("INSERT INTO user_shards (user_id, email, shard) VALUES (?, ?, ?)", userId, email, shard);
+        Placement placement = new Placement(userId, shard, false, 0);
+        placementsByEmail.put(email, placement);
+        shardsByUser.put(userId, shard);
+        return placement;
+    }
+
+    // Undoes register when the user could not be written to its shard
+    public void remove(Long userId) {
+        jdbcTemplate.update("DELETE FROM user_shards WHERE user_id = ?", userId);
+        invalidate(userId);
+    }
+
+    public Optional<Placement> findByEmail(String email) {
+        return Optional.ofNullable(placementsByEmail.get(email, key -> jdbcTemplate.query(
+                        "SELECT " + PLACEMENT_COLUMNS + " FROM user_shards WHERE email = ?", PLACEMENT, key).stream()
+                .findFirst()
+                .orElse(null)));
+    }
+
+    public int shardOf(Long userId) {
+        Integer shard = shardsByUser.get(userId, id -> find(id)
+                .map(Placement::shard)
+                .orElse(null));
+        if (shard == null) {
+            throw new EntityNotFoundException("User not found with id: " + userId);
+        }
+        return shard;
+    }
+
+    /**
+     * Drops the cached entries fenced or moved since the last poll, by this or any other process.
+     * Each poll looks a further interval back, so a change that committed just after the last one
+     * read the clock is still seen. When the directory cannot be read, nothing cached is trusted.
+     */
+    @Scheduled(fixedDelayString = "${datasource.shards.directory-cache.poll-interval}",
+            initialDelayString = "${datasource.shards.directory-cache.poll-interval}")
+    public void poll() {
+        try {
+            LocalDateTime now = databaseTime();
+            jdbcTemplate.queryForList("SELECT user_id FROM user_shards WHERE changed_at >= ?", Long.class,
+                    polledAt.minus(pollInterval)).forEach(this::invalidate);
+            polledAt = now;
+        } catch (DataAccessException e) {
+            placementsByEmail.invalidateAll();
+            shardsByUser.invalidateAll();
+            log.warn("Could not poll the shard directory for changes, dropped its cached entries", e);
+        }
+    }
+
+    // Uncached, for the rebalancer
+    Optional<Placement> find(Long userId) {
+        return jdbcTemplate.query("SELECT " + PLACEMENT_COLUMNS + " FROM user_shards WHERE user_id = ?",
+                PLACEMENT, userId).stream().findFirst();
+    }
+
+    /**
+     * The shard a user is placed on at registration. Stable across restarts; the mixing spreads
+     * sequential ids evenly instead of striping them.
+     */
+    public int homeShard(long userId) {
+        long hash = userId;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) shardCount);
+    }
+
+    public int size() {
+        return shardCount;
+    }
+
+    /**
+     * Marks the user as moving, which refuses their writes once every instance has seen it.
+     * Returns false when the user is not on {@code shard} or is already being moved.
+     */
+    boolean fence(Long userId, int shard) {
+        int updated = jdbcTemplate.update("UPDATE user_shards SET moving = TRUE, version = version + 1, "
+                + "changed_at = LOCALTIMESTAMP WHERE user_id = ? AND shard = ? AND moving = FALSE", userId, shard);
+        invalidate(userId);
+        return updated == 1;
+    }
+
+    // Lifts the fence without moving, when a move is abandoned
+    void unfence(Long userId) {
+        jdbcTemplate.update("UPDATE user_shards SET moving = FALSE, version = version + 1, changed_at = LOCALTIMESTAMP "
+                + "WHERE user_id = ?", userId);
+        invalidate(userId);
+    }
+
+    // Points the user at their new shard and lifts the fence
+    void move(Long userId, int shard) {
+        jdbcTemplate.update("UPDATE user_shards SET shard = ?, moving = FALSE, version = version + 1, "
+                + "changed_at = LOCALTIMESTAMP WHERE user_id = ?", shard, userId);
+        invalidate(userId);
+    }
+
+    // The clock changed_at is written with, so polls do not depend on this instance's clock
+    private LocalDateTime databaseTime() {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+    }
+
+    private void invalidate(Long userId) {
+        shardsByUser.invalidate(userId);
+        placementsByEmail.asMap().values().removeIf(placement -> placement.userId().equals(userId));
+    }
+}
@@ -0,0 +1,51 @@
+package com.tasktracker.datasource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves one user between shards and exits, before the application starts serving:
+ * <pre>
+ * java -jar task-tracker.jar --spring.main.web-application-type=none \
+ *     --datasource.shards.rebalance.user-id=42 --datasource.shards.rebalance.target=2
+ * </pre>
+ * Without a target the user goes back to the shard their id hashes to, which spreads users onto
+ * shards added after they registered.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("datasource.shards.rebalance.user-id")
+@RequiredArgsConstructor
+public class ShardRebalanceRunner implements ApplicationRunner {
+
+    private final ShardRebalancer shardRebalancer;
+    private final ShardDirectory shardDirectory;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${datasource.shards.rebalance.user-id}")
+    private Long userId;
+
+    @Value("${datasource.shards.rebalance.target:#{null}}")
+    private Integer target;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int shard = target != null ? target : shardDirectory.homeShard(userId);
+        int exitCode = 0;
+        try {
+            shardRebalancer.move(userId, shard);
+        } catch (RuntimeException e) {
+            log.error("Moving user {} to shard {} failed", userId, shard, e);
+            exitCode = 1;
+        }
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
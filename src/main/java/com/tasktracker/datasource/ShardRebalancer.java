@@ -0,0 +1,219 @@
+package com.tasktracker.datasource;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves a user, with their tasks and tombstones, to another shard. Rows keep their ids, so the
+ * second-level cache, search index, counters, sync tokens and list ETags stay valid.
+ * <p>
+ * The user is fenced in the directory first. Every instance sees the fence within
+ * datasource.shards.directory-cache.poll-interval and refuses the user's writes from then on,
+ * while their reads still go to the source. After the grace period the rows are copied in one
+ * transaction on the target and compared with the source; if anything changed the copy is
+ * discarded and the fence lifted. Otherwise the directory is switched, and after another grace period, once no
+ * instance reads from the source any more, the copied rows are deleted there.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardRebalancer {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String USER_COLUMNS = "id, email, password, name, created_at, task_data_version";
+    private static final String TASK_COLUMNS =
+            "id, title, description, status, priority, created_at, updated_at, due_date, user_id, due_events";
+    private static final String TOMBSTONE_COLUMNS = "task_id, user_id, deleted_at";
+
+    private final ShardRoutingDataSource shards;
+    private final ShardDirectory shardDirectory;
+
+    // Has to cover the directory cache plus the longest write transaction still in flight
+    @Value("${datasource.shards.rebalance.grace}")
+    private Duration grace;
+
+    @Value("${datasource.shards.directory-cache.poll-interval}")
+    private Duration directoryPollInterval;
+
+    @PostConstruct
+    void init() {
+        if (grace.compareTo(directoryPollInterval) <= 0) {
+            throw new IllegalStateException("datasource.shards.rebalance.grace (" + grace + ") must be longer than "
+                    + "datasource.shards.directory-cache.poll-interval (" + directoryPollInterval + ")");
+        }
+    }
+
+    /**
+     * Returns the number of tasks moved, 0 when the user already is on {@code target}.
+     */
+    public long move(Long userId, int target) {
+        if (target < 0 || target >= shards.size()) {
+            throw new IllegalArgumentException("No shard " + target + ", " + shards.size() + " configured");
+        }
+        int source = shardDirectory.find(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId))
+                .shard();
+        if (source == target) {
+            log.info("User {} already is on shard {}", userId, target);
+            return 0;
+        }
+        if (!shardDirectory.fence(userId, source)) {
+            throw new IllegalStateException("User " + userId + " is already being moved");
+        }
+        long started = System.currentTimeMillis();
+        JdbcTemplate from = new JdbcTemplate(shards.shard(source));
+        JdbcTemplate to = new JdbcTemplate(shards.shard(target));
+
+        long moved;
+        try {
+            pause();
+            Map<String, Object> user = from.queryForMap("SELECT " + USER_COLUMNS + " FROM users WHERE id = ?", userId);
+            Long copied = transaction(shards.shard(target)).execute(status -> {
+                to.update("INSERT INTO users (" + USER_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)",
+                        user.get("id"), user.get("email"), user.get("password"), user.get("name"), user.get("created_at"),
+                        user.get("task_data_version"));
+                long tasks = copy(from, to, "tasks", TASK_COLUMNS, "id", userId);
+                copy(from, to, "task_tombstones", TOMBSTONE_COLUMNS, "task_id", userId);
+                return tasks;
+            });
+            moved = copied != null ? copied : 0;
+            if (!user.equals(from.queryForMap("SELECT " + USER_COLUMNS + " FROM users WHERE id = ?", userId))) {
+                throw new IllegalStateException("User " + userId + " changed while being copied");
+            }
+            verify(from, to, "tasks", TASK_COLUMNS, "id", userId);
+            verify(from, to, "task_tombstones", TOMBSTONE_COLUMNS, "task_id", userId);
+        } catch (RuntimeException e) {
+            discard(shards.shard(target), userId);
+            shardDirectory.unfence(userId);
+            throw e;
+        }
+
+        shardDirectory.move(userId, target);
+        // Instances still holding the fenced principal read from the source until they see the move
+        pause();
+
+        transaction(shards.shard(source)).executeWithoutResult(status -> {
+            delete(from, to, "task_tombstones", "task_id", userId);
+            delete(from, to, "tasks", "id", userId);
+            Integer left = from.queryForObject("SELECT (SELECT COUNT(*) FROM tasks WHERE user_id = ?) "
+                    + "+ (SELECT COUNT(*) FROM task_tombstones WHERE user_id = ?)", Integer.class, userId, userId);
+            if (left != null && left > 0) {
+                // Written after the copy; kept, with the user row, so they can be recovered by hand
+                log.error("User {} has {} rows on shard {} that were not moved to shard {}", userId, left, source, target);
+            } else {
+                from.update("DELETE FROM users WHERE id = ?", userId);
+            }
+        });
+        log.info("Moved user {} with {} tasks from shard {} to shard {} in {} ms",
+                userId, moved, source, target, System.currentTimeMillis() - started);
+        return moved;
+    }
+
+    // Copies the user's rows in key order, a batch at a time
+    private static long copy(JdbcTemplate from, JdbcTemplate to, String table, String columns, String key, Long userId) {
+        String insert = "INSERT INTO " + table + " (" + columns + ") VALUES (?" + ", ?".repeat(columnCount(columns) - 1) + ")";
+        long count = 0;
+        long after = Long.MIN_VALUE;
+        List<Object[]> batch = batch(from, table, columns, key, userId, after);
+        while (!batch.isEmpty()) {
+            to.batchUpdate(insert, batch);
+            count += batch.size();
+            after = lastKey(batch);
+            batch = batch(from, table, columns, key, userId, after);
+        }
+        return count;
+    }
+
+    // Walks both copies in key order; any row written, changed or deleted since the copy differs
+    private static void verify(JdbcTemplate from, JdbcTemplate to, String table, String columns, String key, Long userId) {
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<Object[]> source = batch(from, table, columns, key, userId, after);
+            List<Object[]> copied = batch(to, table, columns, key, userId, after);
+            if (source.size() != copied.size()) {
+                throw new IllegalStateException("User " + userId + "'s " + table + " changed while being copied");
+            }
+            for (int i = 0; i < source.size(); i++) {
+                if (!Arrays.equals(source.get(i), copied.get(i))) {
+                    throw new IllegalStateException("User " + userId + "'s " + table + " changed while being copied");
+                }
+            }
+            if (source.isEmpty()) {
+                return;
+            }
+            after = lastKey(source);
+        }
+    }
+
+    // Deletes from the source only the rows that are on the target
+    private static void delete(JdbcTemplate from, JdbcTemplate to, String table, String key, Long userId) {
+        String delete = "DELETE FROM " + table + " WHERE user_id = ? AND " + key + " = ?";
+        long after = Long.MIN_VALUE;
+        List<Object[]> batch = batch(to, table, key, key, userId, after);
+        while (!batch.isEmpty()) {
+            from.batchUpdate(delete, batch.stream().map(row -> new Object[]{userId, row[0]}).toList());
+            after = lastKey(batch);
+            batch = batch(to, table, key, key, userId, after);
+        }
+    }
+
+    // Removes a copy that was abandoned; the user still lives on the source
+    private static void discard(DataSource target, Long userId) {
+        JdbcTemplate to = new JdbcTemplate(target);
+        transaction(target).executeWithoutResult(status -> {
+            to.update("DELETE FROM task_tombstones WHERE user_id = ?", userId);
+            to.update("DELETE FROM tasks WHERE user_id = ?", userId);
+            to.update("DELETE FROM users WHERE id = ?", userId);
+        });
+    }
+
+    private static List<Object[]> batch(JdbcTemplate jdbcTemplate, String table, String columns, String key,
+                                        Long userId, long after) {
+        int columnCount = columnCount(columns);
+        RowMapper<Object[]> row = (rs, rowNum) -> {
+            Object[] values = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                values[i] = rs.getObject(i + 1);
+            }
+            return values;
+        };
+        return jdbcTemplate.query("SELECT " + columns + " FROM " + table + " WHERE user_id = ? AND " + key + " > ? ORDER BY "
+                + key + " LIMIT " + BATCH_SIZE, row, userId, after);
+    }
+
+    // The key is the first column
+    private static long lastKey(List<Object[]> batch) {
+        return ((Number) batch.get(batch.size() - 1)[0]).longValue();
+    }
+
+    private static int columnCount(String columns) {
+        return columns.split(",").length;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(grace.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for instances to see the directory change", e);
+        }
+    }
+
+    private static TransactionTemplate transaction(DataSource dataSource) {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+}
@@ -0,0 +1,63 @@
+package com.tasktracker.datasource;
+
+import com.tasktracker.entity.User;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Sends each connection to the shard that holds the current user's rows. The shard comes from
+ * {@link ShardContext} when one is set, otherwise from the authenticated principal, which was
+ * placed on its shard when it was loaded through the directory; a request therefore routes
+ * without a lookup of its own. Everything else, including the directory, goes to shard 0.
+ * <p>
+ * Like {@link ReplicaRoutingDataSource}, this sits behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the shard is
+ * chosen when the first statement runs, after the principal is known.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public DataSource shard(int index) {
+        return shards.get(index);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return shards.get(currentShard()).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return shards.get(currentShard()).getConnection(username, password);
+    }
+
+    int currentShard() {
+        Integer shard = ShardContext.current();
+        if (shard == null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            shard = authentication != null && authentication.getPrincipal() instanceof User user ? user.getShard() : 0;
+        }
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalStateException("No shard " + shard + ", " + shards.size() + " configured");
+        }
+        return shard;
+    }
+}
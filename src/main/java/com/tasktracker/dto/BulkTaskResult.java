@@ -0,0 +1,18 @@
+package com.tasktracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTaskResult {
+    private int index;
+    private Long id;
+    private int status;
+    private TaskDTO task;
+    private String error;
+}
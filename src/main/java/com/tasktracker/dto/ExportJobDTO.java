@@ -0,0 +1,23 @@
+package com.tasktracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDTO {
+    private String id;
+    private ExportFormat format;
+    private ExportJobStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private Long rowCount;
+    private Long sizeBytes;
+    private String error;
+}
@@ -0,0 +1,8 @@
+package com.tasktracker.dto;
+
+public enum ExportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,22 @@
+package com.tasktracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskChanges {
+    // Created or updated since the token, oldest change first
+    private List<TaskDTO> changed;
+    // Ids of tasks deleted since the token; may include tasks the client never had
+    private List<Long> deleted;
+    private String nextToken;
+    // More changes are waiting; ask again with nextToken right away
+    private boolean hasMore;
+}
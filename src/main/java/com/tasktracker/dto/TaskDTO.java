@@ -1,5 +1,7 @@
 package com.tasktracker.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.tasktracker.entity.TaskPriority;
 import com.tasktracker.entity.TaskStatus;
 import jakarta.validation.constraints.NotBlank;
@@ -15,8 +17,11 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonFilter(TaskDTO.FIELD_FILTER)
 public class TaskDTO {
 
+    public static final String FIELD_FILTER = "taskFields";
+
     private Long id;
 
     @NotBlank(message = "Title is required")
@@ -25,6 +30,10 @@ public class TaskDTO {
 
     private String description;
 
+    // Only filled by list queries that ask for it through the fields parameter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String descriptionPreview;
+
     private TaskStatus status;
 
     private TaskPriority priority;
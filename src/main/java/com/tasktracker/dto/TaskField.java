@@ -0,0 +1,49 @@
+package com.tasktracker.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Task properties that can be requested through the {@code fields} parameter.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TaskField {
+    ID("id"),
+    TITLE("title"),
+    DESCRIPTION("description"),
+    DESCRIPTION_PREVIEW("descriptionPreview"),
+    STATUS("status"),
+    PRIORITY("priority"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt"),
+    DUE_DATE("dueDate");
+
+    private final String property;
+
+    /**
+     * Parses a comma-separated list of property names, or returns null when no list is given.
+     */
+    public static Set<TaskField> parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Set<TaskField> fields = EnumSet.noneOf(TaskField.class);
+        for (String name : value.split(",")) {
+            fields.add(from(name.trim()));
+        }
+        return fields;
+    }
+
+    private static TaskField from(String property) {
+        for (TaskField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown task field: " + property);
+    }
+}
@@ -0,0 +1,25 @@
+package com.tasktracker.dto;
+
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskStatsDTO {
+    private long total;
+    private Map<TaskStatus, Long> byStatus;
+    private Map<TaskPriority, Long> byPriority;
+    private Map<TaskStatus, Map<TaskPriority, Long>> byStatusAndPriority;
+    private long overdue;
+    private long dueSoon;
+    private LocalDateTime dueSoonUntil;
+}
@@ -0,0 +1,264 @@
+package com.tasktracker.due;
+
+import com.tasktracker.datasource.ShardContext;
+import com.tasktracker.datasource.ShardRoutingDataSource;
+import com.tasktracker.entity.DueDateCheckpoint;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.event.TaskDueEvent;
+import com.tasktracker.repository.DueDateCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Fires reminder and overdue events as tasks come due. Every task row records which of its
+ * events have fired for its current due date in tasks.due_events; a write that moves the due date
+ * or reopens the task sets it back, so a task re-dated into the past, or committed after the time
+ * it was due, gets its events like any other.
+ * <p>
+ * The checkpoint row on shard 0 elects the firer: on each tick one instance takes the row,
+ * skipping if another holds it, reads from every shard the tasks with an event due over the
+ * (due_events, due_date, id) index, fires them in due-date order and records them as fired.
+ * Fired and done tasks leave the ranges it reads, so a tick reads only what is due, and since the
+ * state lives in the tasks table, writes through any instance are seen and a restart or a new
+ * firer carries on where the last one stopped. An instance that goes away between firing and
+ * recording leaves those events to be fired again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DueDateEngine {
+
+    static final String CHECKPOINT = "due-dates";
+    // tasks.due_events: which events have fired for the task's current due date
+    static final int NONE_FIRED = 0;
+    static final int REMINDER_FIRED = 1;
+    static final int ALL_FIRED = 2;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final String DUE_COLUMNS = "id, user_id, due_date, status, due_events";
+    private static final String DUE_ORDER = " ORDER BY due_date, id LIMIT " + LOAD_BATCH_SIZE;
+    private static final RowMapper<DueEntry> DUE_ENTRY = (rs, rowNum) -> new DueEntry(
+            rs.getLong("id"), rs.getLong("user_id"), rs.getObject("due_date", LocalDateTime.class),
+            TaskStatus.valueOf(rs.getString("status")), rs.getInt("due_events"));
+    // Only rows unchanged since they were read, so a write that reset them in between wins
+    private static final String RECORD = "UPDATE tasks SET due_events = ? "
+            + "WHERE id = ? AND due_events = ? AND due_date = ? AND status = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DueDateCheckpointRepository checkpointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final ShardRoutingDataSource shards;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${due.reminder}")
+    private Duration reminder;
+
+    private TransactionTemplate transactionTemplate;
+    // Shard reads and writes run beside the transaction holding the checkpoint, which is bound to
+    // shard 0; not read-only, since a lagging replica could miss a task that just came due
+    private TransactionTemplate shardTemplate;
+    private Counter reminders;
+    private Counter overdue;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        shardTemplate = new TransactionTemplate(transactionManager);
+        shardTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        reminders = eventCounter("reminder");
+        overdue = eventCounter("overdue");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ShardContext.run(0, () -> {
+            if (checkpointRepository.findById(CHECKPOINT).isEmpty()) {
+                try {
+                    // The row every instance locks to elect the firer
+                    checkpointRepository.saveAndFlush(new DueDateCheckpoint(CHECKPOINT, LocalDateTime.now()));
+                } catch (DataIntegrityViolationException e) {
+                    // Another instance created it first
+                }
+            }
+        });
+        // Fires what came due while no instance was running
+        tick();
+    }
+
+    /**
+     * Fires the reminders and overdue events that are due, unless another instance is doing so
+     * right now.
+     */
+    @Scheduled(fixedDelayString = "${due.tick-interval}", initialDelayString = "${due.tick-interval}")
+    public void tick() {
+        ShardContext.run(0, () -> transactionTemplate.executeWithoutResult(status ->
+                checkpointRepository.lockByName(CHECKPOINT).ifPresent(checkpoint -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    long started = System.currentTimeMillis();
+                    long fired = fire(now);
+                    checkpoint.setProcessedUntil(now);
+                    if (fired > 0) {
+                        log.debug("Fired {} due-date events up to {} in {} ms", fired, now, System.currentTimeMillis() - started);
+                    }
+                })));
+    }
+
+    /**
+     * Starts a task's events over when a write moves its due date or reopens it. Runs in the
+     * writer's transaction, so the reset commits with the change.
+     */
+    @EventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.type() != TaskChangedEvent.Type.UPDATED || event.task().getDueDate() == null) {
+            return;
+        }
+        boolean moved = !event.task().getDueDate().equals(event.previous().getDueDate());
+        boolean reopened = event.previous().getStatus() == TaskStatus.DONE && event.task().getStatus() != TaskStatus.DONE;
+        if (moved || reopened) {
+            jdbcTemplate.update("UPDATE tasks SET due_events = ? WHERE id = ?", NONE_FIRED, event.taskId());
+        }
+    }
+
+    /**
+     * Fires, in due-date order, the reminder of every task due before {@code now} plus
+     * due.reminder and the overdue event of every task due before {@code now}; a task already
+     * past due gets only the overdue event. Each shard is read per due_events value, and the
+     * shards are merged through a queue ordered by due date.
+     */
+    private long fire(LocalDateTime now) {
+        List<ShardCursor> cursors = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            cursors.add(new ShardCursor(shard, NONE_FIRED, now.plus(reminder)));
+            cursors.add(new ShardCursor(shard, REMINDER_FIRED, now));
+        }
+        PriorityQueue<ShardCursor> queue = new PriorityQueue<>();
+        for (ShardCursor cursor : cursors) {
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        long fired = 0;
+        while (!queue.isEmpty()) {
+            ShardCursor cursor = queue.poll();
+            DueEntry entry = cursor.head();
+            if (entry.status() == TaskStatus.DONE) {
+                // Nothing to announce; reopening it starts its events over
+                cursor.record(entry, ALL_FIRED);
+            } else if (entry.dueDate().isBefore(now)) {
+                publish(TaskDueEvent.Type.OVERDUE, entry, overdue);
+                cursor.record(entry, ALL_FIRED);
+                fired++;
+            } else {
+                publish(TaskDueEvent.Type.REMINDER, entry, reminders);
+                cursor.record(entry, REMINDER_FIRED);
+                fired++;
+            }
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        cursors.forEach(ShardCursor::flush);
+        return fired;
+    }
+
+    private void publish(TaskDueEvent.Type type, DueEntry entry, Counter counter) {
+        eventPublisher.publishEvent(new TaskDueEvent(type, entry.userId(), entry.taskId(), entry.dueDate()));
+        counter.increment();
+    }
+
+    private Counter eventCounter(String type) {
+        return Counter.builder("tasks.due.events")
+                .description("Reminder and overdue events fired by the due-date engine")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    // One shard's tasks with the given due_events value due before until, read over the
+    // (due_events, due_date, id) index a batch at a time; what was fired is written back per batch
+    private final class ShardCursor implements Comparable<ShardCursor> {
+
+        private final int shard;
+        private final int dueEvents;
+        private final LocalDateTime until;
+        private final Deque<DueEntry> batch = new ArrayDeque<>();
+        private final List<Object[]> recorded = new ArrayList<>();
+        private DueEntry head;
+        private DueEntry last;
+        private boolean exhausted;
+
+        private ShardCursor(int shard, int dueEvents, LocalDateTime until) {
+            this.shard = shard;
+            this.dueEvents = dueEvents;
+            this.until = until;
+        }
+
+        DueEntry head() {
+            return head;
+        }
+
+        // Moves to the next entry; false when the shard has no more
+        boolean advance() {
+            if (batch.isEmpty() && !exhausted) {
+                flush();
+                // The redundant >= gives the index a range to scan
+                List<DueEntry> next = ShardContext.call(shard, () -> shardTemplate.execute(status -> last == null
+                        ? jdbcTemplate.query("SELECT " + DUE_COLUMNS + " FROM tasks WHERE due_events = ? AND due_date < ?"
+                                + DUE_ORDER, DUE_ENTRY, dueEvents, until)
+                        : jdbcTemplate.query("SELECT " + DUE_COLUMNS + " FROM tasks WHERE due_events = ? AND due_date >= ? "
+                                + "AND (due_date > ? OR id > ?) AND due_date < ?" + DUE_ORDER, DUE_ENTRY,
+                                dueEvents, last.dueDate(), last.dueDate(), last.taskId(), until)));
+                if (next == null || next.size() < LOAD_BATCH_SIZE) {
+                    exhausted = true;
+                }
+                if (next != null && !next.isEmpty()) {
+                    batch.addAll(next);
+                    last = next.get(next.size() - 1);
+                }
+            }
+            head = batch.pollFirst();
+            return head != null;
+        }
+
+        void record(DueEntry entry, int fired) {
+            recorded.add(new Object[]{fired, entry.taskId(), entry.dueEvents(), entry.dueDate(), entry.status().name()});
+        }
+
+        void flush() {
+            if (recorded.isEmpty()) {
+                return;
+            }
+            List<Object[]> rows = List.copyOf(recorded);
+            recorded.clear();
+            ShardContext.run(shard, () -> shardTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(RECORD, rows)));
+        }
+
+        @Override
+        public int compareTo(ShardCursor other) {
+            return head.compareTo(other.head);
+        }
+    }
+}
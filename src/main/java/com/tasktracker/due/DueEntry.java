@@ -0,0 +1,22 @@
+package com.tasktracker.due;
+
+import com.tasktracker.entity.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * A task with an event still to fire, as read by {@link DueDateEngine}, with the
+ * tasks.due_events value it was read with. Ordered by due date, then id.
+ */
+public record DueEntry(Long taskId, Long userId, LocalDateTime dueDate, TaskStatus status, int dueEvents)
+        implements Comparable<DueEntry> {
+
+    private static final Comparator<DueEntry> ORDER = Comparator.comparing(DueEntry::dueDate)
+            .thenComparing(DueEntry::taskId);
+
+    @Override
+    public int compareTo(DueEntry other) {
+        return ORDER.compare(this, other);
+    }
+}
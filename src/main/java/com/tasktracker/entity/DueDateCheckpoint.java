@@ -0,0 +1,29 @@
+package com.tasktracker.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The row the due-date engine instances lock to elect the one that fires events; processed_until
+ * is when it last did. What has been fired is recorded on the tasks themselves.
+ */
+@Entity
+@Table(name = "due_date_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DueDateCheckpoint {
+
+    @Id
+    private String name;
+
+    @Column(name = "processed_until", nullable = false)
+    private LocalDateTime processedUntil;
+}
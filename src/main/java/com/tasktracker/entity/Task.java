@@ -5,19 +5,30 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
+// Indexes are created by the migrations in db/migration and checked at startup by SchemaIndexCheck
 @Table(name = "tasks")
+// UPDATEs list only the dirty columns, so a status change does not rewrite the description
+@DynamicUpdate
+// Loads by id are served from the second-level cache; regions are sized in HibernateCacheConfig
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tasks")
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Task {
 
+    // A pooled sequence lets Hibernate batch inserts; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
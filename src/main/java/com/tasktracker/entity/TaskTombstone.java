@@ -0,0 +1,44 @@
+package com.tasktracker.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a deleted task so clients syncing with GET /api/tasks/changes learn about the deletion.
+ * Tombstones older than sync.tombstone-ttl are compacted away.
+ */
+@Entity
+@Table(name = "task_tombstones")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskTombstone implements Persistable<Long> {
+
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    @Override
+    public Long getId() {
+        return taskId;
+    }
+
+    // Only ever inserted; otherwise save() would SELECT the assigned id first to choose between insert and merge
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -1,10 +1,15 @@
 package com.tasktracker.entity;
 
+import com.tasktracker.service.UserCacheEvictionListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,16 +20,22 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheEvictionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+// Lets a lookup by email resolve the id from the cache and then load the user from the users region
+@NaturalIdCache(region = "users-by-email")
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class User implements UserDetails {
 
+    // Assigned by ShardDirectory so ids are unique across shards
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(nullable = false, unique = true)
     private String email;
 
@@ -40,6 +51,18 @@ public class User implements UserDetails {
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Task> tasks;
 
+    // The shard this user's rows live on, set from the directory when the principal is loaded
+    @Transient
+    private int shard;
+
+    // The directory entry's version when the principal was loaded; a newer one means it is stale
+    @Transient
+    private long shardVersion;
+
+    // Set while the user is being moved to another shard; their writes are refused until it is done
+    @Transient
+    private boolean moving;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,27 @@
+package com.tasktracker.event;
+
+import com.tasktracker.dto.TaskDTO;
+
+/**
+ * Published by TaskService for every task write. Listeners that mirror task state
+ * should use @TransactionalEventListener so they only see committed changes.
+ *
+ * @param task     the task after the change, or the last known state for DELETED
+ * @param previous the task before an UPDATED change, otherwise null
+ */
+public record TaskChangedEvent(Type type, Long userId, TaskDTO task, TaskDTO previous) {
+
+    public TaskChangedEvent(Type type, Long userId, TaskDTO task) {
+        this(type, userId, task, null);
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public Long taskId() {
+        return task.getId();
+    }
+}
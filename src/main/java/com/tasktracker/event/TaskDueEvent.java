@@ -0,0 +1,16 @@
+package com.tasktracker.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by the due-date engine when an open task comes within the reminder lead of its due
+ * date and again when it becomes overdue; a task that is already past due gets only the overdue
+ * event. Moving the due date or reopening the task makes it eligible again.
+ */
+public record TaskDueEvent(Type type, Long userId, Long taskId, LocalDateTime dueDate) {
+
+    public enum Type {
+        REMINDER,
+        OVERDUE
+    }
+}
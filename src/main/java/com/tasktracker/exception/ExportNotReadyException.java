@@ -0,0 +1,15 @@
+package com.tasktracker.exception;
+
+import com.tasktracker.dto.ExportJobStatus;
+import lombok.Getter;
+
+@Getter
+public class ExportNotReadyException extends RuntimeException {
+
+    private final ExportJobStatus status;
+
+    public ExportNotReadyException(String message, ExportJobStatus status) {
+        super(message);
+        this.status = status;
+    }
+}
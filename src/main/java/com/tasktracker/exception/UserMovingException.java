@@ -0,0 +1,8 @@
+package com.tasktracker.exception;
+
+public class UserMovingException extends RuntimeException {
+
+    public UserMovingException(String message) {
+        super(message);
+    }
+}
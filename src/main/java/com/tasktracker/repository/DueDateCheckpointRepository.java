@@ -0,0 +1,17 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.entity.DueDateCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DueDateCheckpointRepository extends JpaRepository<DueDateCheckpoint, String> {
+
+    // Empty while another instance holds the row, so only one of them fires at a time
+    @Query(value = "SELECT * FROM due_date_checkpoints WHERE name = :name FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<DueDateCheckpoint> lockByName(@Param("name") String name);
+}
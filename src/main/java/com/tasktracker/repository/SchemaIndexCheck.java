@@ -0,0 +1,76 @@
+package com.tasktracker.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fails startup when an index the task queries rely on is missing, for example after one was
+ * dropped by hand or a migration was marked as applied without running. Without them the list
+ * endpoints fall back to sequential scans and sorts, which only shows up on large tenants.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaIndexCheck {
+
+    // Table -> indexes created by the migrations in db/migration
+    static final Map<String, List<String>> EXPECTED_INDEXES = Map.of(
+            "tasks", List.of("idx_tasks_user_created", "idx_tasks_user_status", "idx_tasks_user_due",
+                    "idx_tasks_user_updated", "idx_tasks_due_events"),
+            "task_tombstones", List.of("idx_task_tombstones_user_deleted", "idx_task_tombstones_deleted"));
+
+    private final DataSource dataSource;
+    // Declared so the migrations have run before this does
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void checkIndexes() throws SQLException {
+        List<String> missing = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (Map.Entry<String, List<String>> table : EXPECTED_INDEXES.entrySet()) {
+                Set<String> present = indexNames(metaData, table.getKey());
+                for (String index : table.getValue()) {
+                    if (!present.contains(index)) {
+                        missing.add(table.getKey() + "." + index);
+                    }
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Missing database indexes " + missing
+                    + "; run the migrations in db/migration or recreate them");
+        }
+        log.debug("All expected indexes are present");
+    }
+
+    private static Set<String> indexNames(DatabaseMetaData metaData, String table) throws SQLException {
+        // Unquoted names are stored upper case by some databases (H2) and lower case by others
+        String storedName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        Set<String> names = new HashSet<>();
+        try (ResultSet indexes = metaData.getIndexInfo(null, null, storedName, false, true)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null) {
+                    names.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -4,23 +4,37 @@ import com.tasktracker.entity.Task;
 import com.tasktracker.entity.TaskPriority;
 import com.tasktracker.entity.TaskStatus;
 import com.tasktracker.entity.User;
+import com.tasktracker.search.TaskDocument;
+import com.tasktracker.stats.TaskCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
 
-    @Query("SELECT t FROM Task t WHERE t.user = :user AND " +
-           "(:search IS NULL OR :search = '' OR " +
+    String SEARCH_FILTER = "(:search IS NULL OR :search = '' OR " +
            "LOWER(t.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(t.description) LIKE LOWER(CONCAT('%', :search, '%'))) " +
            "AND (:status IS NULL OR t.status = :status) " +
-           "AND (:priority IS NULL OR t.priority = :priority) " +
+           "AND (:priority IS NULL OR t.priority = :priority) ";
+
+    String KEYSET_AFTER = "(t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) ";
+
+    String KEYSET_ORDER = "ORDER BY t.createdAt DESC, t.id DESC";
+
+    @Query("SELECT t FROM Task t WHERE t.user = :user AND " +
+           SEARCH_FILTER +
            "ORDER BY t.createdAt DESC")
     List<Task> searchTasks(
             @Param("user") User user,
@@ -29,9 +43,111 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
             @Param("priority") TaskPriority priority
     );
 
+    @Query("SELECT t FROM Task t WHERE t.user = :user AND " +
+           SEARCH_FILTER +
+           KEYSET_ORDER)
+    List<Task> searchTasksFirstPage(
+            @Param("user") User user,
+            @Param("search") String search,
+            @Param("status") TaskStatus status,
+            @Param("priority") TaskPriority priority,
+            Pageable pageable
+    );
+
+    @Query("SELECT t FROM Task t WHERE t.user = :user AND " +
+           SEARCH_FILTER + "AND " + KEYSET_AFTER +
+           KEYSET_ORDER)
+    List<Task> searchTasksAfter(
+            @Param("user") User user,
+            @Param("search") String search,
+            @Param("status") TaskStatus status,
+            @Param("priority") TaskPriority priority,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    // Forward-only cursor for exports; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Task t WHERE t.user = :user AND " +
+           SEARCH_FILTER +
+           KEYSET_ORDER)
+    Stream<Task> streamTasks(
+            @Param("user") User user,
+            @Param("search") String search,
+            @Param("status") TaskStatus status,
+            @Param("priority") TaskPriority priority
+    );
+
+    // The unfiltered list reads are cached as task ids; Hibernate drops the cached results whenever
+    // the tasks table is written through this instance, and the rows come from the tasks region
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     List<Task> findByUserOrderByCreatedAtDesc(User user);
 
-    Optional<Task> findByIdAndUser(Long id, User user);
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT t FROM Task t WHERE t.user = :user " + KEYSET_ORDER)
+    List<Task> findFirstPageByUser(@Param("user") User user, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT t FROM Task t WHERE t.user = :user AND " + KEYSET_AFTER + KEYSET_ORDER)
+    List<Task> findPageByUserAfter(
+            @Param("user") User user,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    // The redundant >= gives the (user_id, updated_at, id) index a range to scan
+    @Query("SELECT t FROM Task t WHERE t.user = :user AND t.updatedAt >= :changedAt " +
+           "AND (t.updatedAt > :changedAt OR t.id > :id) ORDER BY t.updatedAt, t.id")
+    List<Task> findChangedAfter(
+            @Param("user") User user,
+            @Param("changedAt") LocalDateTime changedAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    List<Task> findByUserAndIdIn(User user, Collection<Long> ids);
+
+    @Query("SELECT new com.tasktracker.stats.TaskCount(t.status, t.priority, COUNT(t)) FROM Task t " +
+           "WHERE t.user.id = :userId GROUP BY t.status, t.priority")
+    List<TaskCount> countByStatusAndPriority(@Param("userId") Long userId);
+
+    @Query("SELECT t.dueDate FROM Task t WHERE t.user.id = :userId AND t.dueDate IS NOT NULL " +
+           "AND t.status <> com.tasktracker.entity.TaskStatus.DONE")
+    List<LocalDateTime> findOpenDueDates(@Param("userId") Long userId);
+
+    String OPEN_DUE = "SELECT t FROM Task t WHERE t.user.id = :userId " +
+           "AND t.status <> com.tasktracker.entity.TaskStatus.DONE AND ";
+
+    String DUE_ORDER = " ORDER BY t.dueDate, t.id";
+
+    // A user's open tasks by due date, a page at a time over the (user_id, due_date) index
+    @Query(OPEN_DUE + "t.dueDate < :until" + DUE_ORDER)
+    List<Task> findOpenDueBefore(@Param("userId") Long userId, @Param("until") LocalDateTime until,
+                                 Pageable pageable);
+
+    @Query(OPEN_DUE + "t.dueDate >= :from AND t.dueDate < :until" + DUE_ORDER)
+    List<Task> findOpenDueBetween(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                  @Param("until") LocalDateTime until, Pageable pageable);
+
+    // The redundant >= gives the index a range to scan
+    @Query(OPEN_DUE + "t.dueDate >= :dueDate AND (t.dueDate > :dueDate OR t.id > :id) " +
+           "AND t.dueDate < :until" + DUE_ORDER)
+    List<Task> findOpenDueAfter(
+            @Param("userId") Long userId,
+            @Param("dueDate") LocalDateTime dueDate,
+            @Param("id") Long id,
+            @Param("until") LocalDateTime until,
+            Pageable pageable
+    );
+
+    @Query("SELECT new com.tasktracker.search.TaskDocument(t.id, t.user.id, t.title, t.description, " +
+           "t.status, t.priority, t.createdAt) FROM Task t WHERE t.id > :id ORDER BY t.id")
+    List<TaskDocument> findDocumentsAfterId(@Param("id") Long id, Pageable pageable);
 
     List<Task> findByUserAndStatus(User user, TaskStatus status);
 
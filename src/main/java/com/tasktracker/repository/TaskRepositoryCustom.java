@@ -0,0 +1,29 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.dto.TaskField;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Queries that select only the requested task columns. Rows come back as scalars, so no
+ * entities are loaded into the persistence context. Id and createdAt are always selected
+ * because the keyset cursor is built from them.
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Same filter and ordering as {@link TaskRepository#searchTasksAfter}; a null createdAt starts at
+     * the first page and a null maxResults returns every match.
+     */
+    List<TaskDTO> findProjected(User user, Set<TaskField> fields, String search, TaskStatus status,
+                                TaskPriority priority, LocalDateTime createdAt, Long id, Integer maxResults);
+
+    List<TaskDTO> findProjectedByIds(User user, Set<TaskField> fields, Collection<Long> ids);
+}
@@ -0,0 +1,132 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.dto.TaskField;
+import com.tasktracker.entity.Task;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    static final int PREVIEW_LENGTH = 120;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TaskDTO> findProjected(User user, Set<TaskField> fields, String search, TaskStatus status,
+                                       TaskPriority priority, LocalDateTime createdAt, Long id, Integer maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Task> t = query.from(Task.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(t.get("user"), user));
+        if (search != null && !search.isEmpty()) {
+            String pattern = "%" + search.toLowerCase(Locale.ROOT) + "%";
+            predicates.add(cb.or(
+                    cb.like(cb.lower(t.get("title")), pattern),
+                    cb.like(cb.lower(t.get("description")), pattern)));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(t.get("status"), status));
+        }
+        if (priority != null) {
+            predicates.add(cb.equal(t.get("priority"), priority));
+        }
+        if (createdAt != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(t.get("createdAt"), createdAt),
+                    cb.and(cb.equal(t.get("createdAt"), createdAt), cb.lessThan(t.get("id"), id))));
+        }
+
+        query.multiselect(selections(cb, t, fields))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(t.get("createdAt")), cb.desc(t.get("id")));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (maxResults != null) {
+            typedQuery.setMaxResults(maxResults);
+        }
+        return typedQuery.getResultList().stream()
+                .map(tuple -> toDTO(tuple, fields))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TaskDTO> findProjectedByIds(User user, Set<TaskField> fields, Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Task> t = query.from(Task.class);
+
+        query.multiselect(selections(cb, t, fields))
+                .where(cb.equal(t.get("user"), user), t.get("id").in(ids));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(tuple -> toDTO(tuple, fields))
+                .collect(Collectors.toList());
+    }
+
+    private List<Selection<?>> selections(CriteriaBuilder cb, Root<Task> t, Set<TaskField> fields) {
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(t.get("id").alias(TaskField.ID.getProperty()));
+        selections.add(t.get("createdAt").alias(TaskField.CREATED_AT.getProperty()));
+        for (TaskField field : fields) {
+            switch (field) {
+                case ID, CREATED_AT -> {
+                }
+                // One extra character tells us whether the preview was cut short
+                case DESCRIPTION_PREVIEW -> selections.add(cb.substring(t.get("description"), 1, PREVIEW_LENGTH + 1)
+                        .alias(field.getProperty()));
+                default -> selections.add(t.get(field.getProperty()).alias(field.getProperty()));
+            }
+        }
+        return selections;
+    }
+
+    private TaskDTO toDTO(Tuple tuple, Set<TaskField> fields) {
+        TaskDTO dto = TaskDTO.builder()
+                .id(tuple.get(TaskField.ID.getProperty(), Long.class))
+                .createdAt(tuple.get(TaskField.CREATED_AT.getProperty(), LocalDateTime.class))
+                .build();
+        for (TaskField field : fields) {
+            switch (field) {
+                case TITLE -> dto.setTitle(tuple.get(field.getProperty(), String.class));
+                case DESCRIPTION -> dto.setDescription(tuple.get(field.getProperty(), String.class));
+                case DESCRIPTION_PREVIEW -> dto.setDescriptionPreview(preview(tuple.get(field.getProperty(), String.class)));
+                case STATUS -> dto.setStatus(tuple.get(field.getProperty(), TaskStatus.class));
+                case PRIORITY -> dto.setPriority(tuple.get(field.getProperty(), TaskPriority.class));
+                case UPDATED_AT -> dto.setUpdatedAt(tuple.get(field.getProperty(), LocalDateTime.class));
+                case DUE_DATE -> dto.setDueDate(tuple.get(field.getProperty(), LocalDateTime.class));
+                default -> {
+                }
+            }
+        }
+        return dto;
+    }
+
+    private String preview(String description) {
+        if (description == null || description.length() <= PREVIEW_LENGTH) {
+            return description;
+        }
+        return description.substring(0, PREVIEW_LENGTH) + "…";
+    }
+}
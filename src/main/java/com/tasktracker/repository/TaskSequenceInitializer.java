@@ -0,0 +1,55 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.datasource.ShardContext;
+import com.tasktracker.datasource.ShardRoutingDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Task ids used to come from an identity column. The pooled sequence that replaced it starts
+ * at 1, so on databases that already hold tasks it is moved past the highest existing id.
+ * <p>
+ * Each shard hands out ids from a range of its own, starting at its index shifted by
+ * {@link #SHARD_ID_BITS}, so task ids stay unique across shards and a user's tasks keep their
+ * ids when they move. Shard 0 starts at 0, as before sharding.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskSequenceInitializer {
+
+    public static final String SEQUENCE_NAME = "task_seq";
+    public static final int ALLOCATION_SIZE = 50;
+    static final int SHARD_ID_BITS = 48;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRoutingDataSource shards;
+    // Declared so the schema, including the sequence, exists before this runs
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void alignSequences() {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            long rangeStart = (long) shard << SHARD_ID_BITS;
+            int index = shard;
+            ShardContext.run(shard, () -> alignSequence(index, rangeStart));
+        }
+    }
+
+    private void alignSequence(int shard, long rangeStart) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tasks", Long.class);
+        Long next = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE_NAME + "')", Long.class);
+        long floor = Math.max(maxId != null ? maxId : 0, rangeStart);
+        // The pooled optimizer hands out (value - ALLOCATION_SIZE, value] for each value it reads, so
+        // after this read the next block starts right after "next"
+        if (next != null && next < floor) {
+            long restartWith = floor + ALLOCATION_SIZE;
+            jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE_NAME + " RESTART WITH " + restartWith);
+            log.info("Moved {} on shard {} past existing task ids, restarting at {}", SEQUENCE_NAME, shard, restartWith);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.entity.TaskTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, Long> {
+
+    // The redundant >= gives the (user_id, deleted_at, task_id) index a range to scan
+    @Query("SELECT t FROM TaskTombstone t WHERE t.userId = :userId AND t.deletedAt >= :deletedAt " +
+           "AND (t.deletedAt > :deletedAt OR t.taskId > :taskId) ORDER BY t.deletedAt, t.taskId")
+    List<TaskTombstone> findDeletedAfter(
+            @Param("userId") Long userId,
+            @Param("deletedAt") LocalDateTime deletedAt,
+            @Param("taskId") Long taskId,
+            Pageable pageable
+    );
+
+    // Runs once per shard in a transaction of its own
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TaskTombstone t WHERE t.deletedAt < :before")
+    int deleteByDeletedAtBefore(@Param("before") LocalDateTime before);
+}
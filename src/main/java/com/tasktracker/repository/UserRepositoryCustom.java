@@ -0,0 +1,21 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.entity.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Looks the user up by natural id: the email is resolved to an id through the users-by-email
+     * region and the user is loaded from the users region, so a known email costs no query.
+     * Misses read the primary, never a replica.
+     */
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Inserts a new user. Ids are assigned up front, which save() would take for an existing
+     * user and merge, reading the row first.
+     */
+    void persist(User user);
+}
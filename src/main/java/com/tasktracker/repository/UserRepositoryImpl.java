@@ -0,0 +1,32 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Not read-only, so a cache miss reads the primary: logins and principal loads must see a
+    // user who just registered or changed their password, which a replica may not have yet.
+    // The session has to stay open for the load
+    @Override
+    @Transactional
+    public Optional<User> findByEmail(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+    }
+
+    @Override
+    @Transactional
+    public void persist(User user) {
+        entityManager.persist(user);
+    }
+}
@@ -0,0 +1,17 @@
+package com.tasktracker.search;
+
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+
+import java.time.LocalDateTime;
+
+public record TaskDocument(
+        Long id,
+        Long userId,
+        String title,
+        String description,
+        TaskStatus status,
+        TaskPriority priority,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,285 @@
+package com.tasktracker.search;
+
+import com.tasktracker.datasource.ShardContext;
+import com.tasktracker.datasource.ShardRoutingDataSource;
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.repository.TaskRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index over task titles and descriptions, kept on local disk and rebuilt from every
+ * shard on startup. Until the rebuild finishes {@link #isReady()} is false and callers should
+ * fall back to the database search.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskSearchIndex {
+
+    private static final String ID = "id";
+    private static final String USER_ID = "userId";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String STATUS = "status";
+    private static final String PRIORITY = "priority";
+    private static final String CREATED_AT = "createdAt";
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final Sort RANKING = new Sort(SortField.FIELD_SCORE, new SortField(CREATED_AT, SortField.Type.LONG, true));
+
+    private final TaskRepository taskRepository;
+    private final ShardRoutingDataSource shards;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    // Changes that arrive while the rebuild is running; replayed once it finishes
+    private final Map<Long, TaskChangedEvent> changesDuringRebuild = new HashMap<>();
+    private final Object rebuildLock = new Object();
+
+    @Value("${search.index.enabled}")
+    private boolean enabled;
+
+    @Value("${search.index.path}")
+    private Path indexPath;
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private boolean rebuilding;
+    private volatile boolean ready;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        directory = FSDirectory.open(indexPath);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        ready = false;
+        searcherManager.close();
+        writer.close();
+        directory.close();
+        analyzer.close();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        ready = false;
+        synchronized (rebuildLock) {
+            rebuilding = true;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            writer.deleteAll();
+
+            long count = 0;
+            for (int shard = 0; shard < shards.size(); shard++) {
+                count += ShardContext.call(shard, this::indexShard);
+            }
+
+            synchronized (rebuildLock) {
+                for (TaskChangedEvent event : changesDuringRebuild.values()) {
+                    apply(event);
+                }
+                changesDuringRebuild.clear();
+                rebuilding = false;
+            }
+
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            ready = true;
+            log.info("Rebuilt task search index with {} tasks in {} ms", count, System.currentTimeMillis() - started);
+        } finally {
+            synchronized (rebuildLock) {
+                changesDuringRebuild.clear();
+                rebuilding = false;
+            }
+        }
+    }
+
+    private long indexShard() throws IOException {
+        long count = 0;
+        List<TaskDocument> batch = taskRepository.findDocumentsAfterId(0L, PageRequest.ofSize(REBUILD_BATCH_SIZE));
+        while (!batch.isEmpty()) {
+            for (TaskDocument task : batch) {
+                writer.addDocument(toDocument(task));
+            }
+            count += batch.size();
+            Long lastId = batch.get(batch.size() - 1).id();
+            batch = taskRepository.findDocumentsAfterId(lastId, PageRequest.ofSize(REBUILD_BATCH_SIZE));
+        }
+        return count;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            if (rebuilding) {
+                changesDuringRebuild.put(event.taskId(), event);
+            }
+            apply(event);
+        }
+        searcherManager.maybeRefresh();
+    }
+
+    /**
+     * Returns the ids of the user's matching tasks, best match first. Every query term must
+     * match the title or description exactly, as a prefix, or within a small edit distance.
+     */
+    public List<Long> search(Long userId, String text, TaskStatus status, TaskPriority priority,
+                             int offset, int limit) {
+        Query query = buildQuery(userId, text, status, priority);
+        if (query == null) {
+            return List.of();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                int hitsToCollect = limit == Integer.MAX_VALUE
+                        ? Math.max(1, searcher.count(query))
+                        : (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+                TopDocs topDocs = searcher.search(query, hitsToCollect, RANKING);
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>();
+                for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+                    ids.add(Long.valueOf(storedFields.document(topDocs.scoreDocs[i].doc).get(ID)));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void apply(TaskChangedEvent event) throws IOException {
+        Term idTerm = new Term(ID, String.valueOf(event.taskId()));
+        if (event.type() == TaskChangedEvent.Type.DELETED) {
+            writer.deleteDocuments(idTerm);
+            return;
+        }
+        TaskDTO task = event.task();
+        writer.updateDocument(idTerm, toDocument(new TaskDocument(task.getId(), event.userId(), task.getTitle(),
+                task.getDescription(), task.getStatus(), task.getPriority(), task.getCreatedAt())));
+    }
+
+    private Query buildQuery(Long userId, String text, TaskStatus status, TaskPriority priority) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USER_ID, String.valueOf(userId))), BooleanClause.Occur.FILTER);
+        if (status != null) {
+            query.add(new TermQuery(new Term(STATUS, status.name())), BooleanClause.Occur.FILTER);
+        }
+        if (priority != null) {
+            query.add(new TermQuery(new Term(PRIORITY, priority.name())), BooleanClause.Occur.FILTER);
+        }
+
+        for (String term : terms) {
+            int maxEdits = term.length() < 4 ? 0 : term.length() < 8 ? 1 : 2;
+            BooleanQuery.Builder termQuery = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(TITLE, term)), 4f), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new TermQuery(new Term(DESCRIPTION, term)), 2f), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new PrefixQuery(new Term(TITLE, term)), 1.5f), BooleanClause.Occur.SHOULD)
+                    .add(new PrefixQuery(new Term(DESCRIPTION, term)), BooleanClause.Occur.SHOULD);
+            if (maxEdits > 0) {
+                termQuery.add(new FuzzyQuery(new Term(TITLE, term), maxEdits, 1), BooleanClause.Occur.SHOULD)
+                        .add(new BoostQuery(new FuzzyQuery(new Term(DESCRIPTION, term), maxEdits, 1), 0.5f),
+                                BooleanClause.Occur.SHOULD);
+            }
+            query.add(termQuery.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(TITLE, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private Document toDocument(TaskDocument task) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(task.id()), Field.Store.YES));
+        document.add(new StringField(USER_ID, String.valueOf(task.userId()), Field.Store.NO));
+        document.add(new TextField(TITLE, task.title(), Field.Store.NO));
+        if (task.description() != null) {
+            document.add(new TextField(DESCRIPTION, task.description(), Field.Store.NO));
+        }
+        document.add(new StringField(STATUS, task.status().name(), Field.Store.NO));
+        document.add(new StringField(PRIORITY, task.priority().name(), Field.Store.NO));
+        document.add(new NumericDocValuesField(CREATED_AT, toEpochMillis(task.createdAt())));
+        return document;
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+}
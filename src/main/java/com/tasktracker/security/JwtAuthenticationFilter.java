@@ -1,15 +1,21 @@
 package com.tasktracker.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -17,11 +23,33 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String VALIDATIONS = "auth.jwt.validations";
+    private static final String STREAM_TOKEN_PARAMETER = "access_token";
+    private static final String STREAM_PATH = "/api/tasks/stream";
+
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    // Registered up front so the request path only increments
+    private final Counter valid;
+    private final Counter expired;
+    private final Counter badSignature;
+    private final Counter malformed;
+    private final Counter unknownUser;
+    private final Counter rejected;
+
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService,
+                                   MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.valid = outcomeCounter(meterRegistry, "valid");
+        this.expired = outcomeCounter(meterRegistry, "expired");
+        this.badSignature = outcomeCounter(meterRegistry, "bad_signature");
+        this.malformed = outcomeCounter(meterRegistry, "malformed");
+        this.unknownUser = outcomeCounter(meterRegistry, "unknown_user");
+        this.rejected = outcomeCounter(meterRegistry, "rejected");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -32,21 +60,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
         final String userEmail;
+        // EventSource cannot send headers, so the stream takes a stream token in its URL instead
+        final boolean fromUrl = authHeader == null && STREAM_PATH.equals(request.getRequestURI())
+                && request.getParameter(STREAM_TOKEN_PARAMETER) != null;
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (fromUrl) {
+            jwt = request.getParameter(STREAM_TOKEN_PARAMETER);
+        } else if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            jwt = authHeader.substring(7);
+        } else {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-
         try {
-            userEmail = jwtService.extractUsername(jwt);
+            Claims claims = jwtService.parseToken(jwt);
+            userEmail = claims.getSubject();
 
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Stream tokens open the stream and nothing else; the URL takes nothing but them
+            if (jwtService.isStreamToken(claims) != fromUrl) {
+                rejected.increment();
+            } else if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (jwtService.isTokenValid(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -56,12 +93,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             new WebAuthenticationDetailsSource().buildDetails(request)
                     );
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    valid.increment();
+                } else {
+                    rejected.increment();
                 }
             }
-        } catch (Exception e) {
+        } catch (ExpiredJwtException e) {
             // Invalid token - continue without authentication
+            expired.increment();
+        } catch (SignatureException e) {
+            badSignature.increment();
+        } catch (JwtException | IllegalArgumentException e) {
+            malformed.increment();
+        } catch (UsernameNotFoundException e) {
+            unknownUser.increment();
+        } catch (Exception e) {
+            rejected.increment();
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(VALIDATIONS)
+                .description("Bearer tokens checked by the authentication filter, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,212 @@
+package com.tasktracker.security;
+
+import com.tasktracker.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per user for the task endpoints, and per client address for /api/auth/** and
+ * requests without a valid token. Runs after {@link JwtAuthenticationFilter} so the user is
+ * known. Exports draw rate-limit.export-cost tokens from the user's bucket instead of one.
+ * Throttled requests get 429 with Retry-After before they reach a controller or the database.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String REJECTED = "http.rate-limit.rejected";
+    private static final String BODY = "{\"error\":\"Too many requests, try again later\"}";
+
+    private final MeterRegistry meterRegistry;
+    // Full buckets carry no state, so missing and full are the same; idle ones are dropped by evictIdle
+    private final Map<Long, TokenBucket> users = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> addresses = new ConcurrentHashMap<>();
+
+    @Value("${rate-limit.enabled}")
+    private boolean enabled;
+
+    @Value("${rate-limit.user.capacity}")
+    private int userCapacity;
+
+    @Value("${rate-limit.user.refill-per-second}")
+    private double userRefill;
+
+    @Value("${rate-limit.address.capacity}")
+    private int addressCapacity;
+
+    @Value("${rate-limit.address.refill-per-second}")
+    private double addressRefill;
+
+    @Value("${rate-limit.export-cost}")
+    private int exportCost;
+
+    private Limit userLimit;
+    private Limit addressLimit;
+    private Counter userRejections;
+    private Counter addressRejections;
+
+    public RateLimitFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (exportCost < 1 || exportCost > userCapacity) {
+            throw new IllegalStateException("rate-limit.export-cost must be between 1 and rate-limit.user.capacity");
+        }
+        userLimit = Limit.of(userCapacity, userRefill);
+        addressLimit = Limit.of(addressCapacity, addressRefill);
+        userRejections = rejectionCounter("user");
+        addressRejections = rejectionCounter("address");
+        Gauge.builder("http.rate-limit.buckets", this, filter -> filter.users.size() + filter.addresses.size())
+                .description("Users and client addresses with a partly drained rate-limit bucket")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // Health checks and scrapes stay unthrottled
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long now = System.nanoTime();
+        Long userId = request.getRequestURI().startsWith("/api/auth/") ? null : currentUserId();
+        long waitNanos;
+        if (userId != null) {
+            waitNanos = bucket(users, userId, now).tryConsume(cost(request), userLimit, now);
+            if (waitNanos > 0) {
+                userRejections.increment();
+            }
+        } else {
+            // The client's address, resolved from trusted proxies' X-Forwarded-For by the server
+            waitNanos = bucket(addresses, request.getRemoteAddr(), now).tryConsume(1, addressLimit, now);
+            if (waitNanos > 0) {
+                addressRejections.increment();
+            }
+        }
+
+        if (waitNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds(waitNanos)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(BODY);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Drops buckets that have refilled completely. A request racing with the removal may have its
+     * tokens forgotten, which lets at most one extra request through.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval}", initialDelayString = "${rate-limit.eviction-interval}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        users.values().removeIf(bucket -> bucket.isFull(now));
+        addresses.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private int cost(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        boolean export = ("GET".equals(request.getMethod()) && path.equals("/api/tasks/export"))
+                || ("POST".equals(request.getMethod()) && path.equals("/api/tasks/exports"));
+        return export ? exportCost : 1;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+        return null;
+    }
+
+    private static <K> TokenBucket bucket(Map<K, TokenBucket> buckets, K key, long now) {
+        // get first: computeIfAbsent locks the bin even when the key is present
+        TokenBucket bucket = buckets.get(key);
+        return bucket != null ? bucket : buckets.computeIfAbsent(key, k -> new TokenBucket(now));
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private Counter rejectionCounter(String limit) {
+        return Counter.builder(REJECTED)
+                .description("Requests answered with 429 by the rate limiter, by bucket kind")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    // A bucket holds at most burstNanos worth of tokens and gains one every nanosPerToken
+    record Limit(long nanosPerToken, long burstNanos) {
+
+        static Limit of(int capacity, double refillPerSecond) {
+            long nanosPerToken = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+            return new Limit(nanosPerToken, nanosPerToken * capacity);
+        }
+    }
+
+    /**
+     * A token bucket kept as the single time at which it will be full again, so taking tokens is
+     * one compare-and-set without a lock. Times are System.nanoTime values and only compared by
+     * difference.
+     */
+    static final class TokenBucket {
+
+        private final AtomicLong fullAt;
+
+        TokenBucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+
+        /**
+         * Takes {@code cost} tokens and returns 0, or takes none and returns how long until they
+         * would be there, in nanoseconds.
+         */
+        long tryConsume(int cost, Limit limit, long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = (current - now > 0 ? current : now) + cost * limit.nanosPerToken();
+                long excess = next - now - limit.burstNanos();
+                if (excess > 0) {
+                    return excess;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return fullAt.get() - now <= 0;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.tasktracker.service;
 
+import com.tasktracker.datasource.ShardContext;
+import com.tasktracker.datasource.ShardDirectory;
 import com.tasktracker.dto.AuthRequest;
 import com.tasktracker.dto.AuthResponse;
 import com.tasktracker.dto.RegisterRequest;
@@ -7,8 +9,10 @@ import com.tasktracker.entity.User;
 import com.tasktracker.repository.UserRepository;
 import com.tasktracker.security.JwtService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -17,22 +21,38 @@ import org.springframework.stereotype.Service;
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final ShardDirectory shardDirectory;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
 
     public AuthResponse register(RegisterRequest request) {
-        if (userRepository.existsByEmail(request.getEmail())) {
+        // Hashed first: the encoder rejects when its pool is full, which must not leave the email claimed
+        String password = passwordEncoder.encode(request.getPassword());
+
+        // The directory's unique email decides across all shards, including concurrent registrations
+        ShardDirectory.Placement placement;
+        try {
+            placement = shardDirectory.register(request.getEmail());
+        } catch (DuplicateKeyException e) {
             throw new RuntimeException("Email already exists");
         }
 
         var user = User.builder()
+                .id(placement.userId())
+                .shard(placement.shard())
                 .name(request.getName())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(password)
                 .build();
 
-        userRepository.save(user);
+        try {
+            ShardContext.run(placement.shard(), () -> userRepository.persist(user));
+        } catch (RuntimeException e) {
+            // Frees the email again
+            shardDirectory.remove(placement.userId());
+            throw e;
+        }
 
         var jwtToken = jwtService.generateToken(user);
 
@@ -43,16 +63,28 @@ public class AuthService {
                 .build();
     }
 
+    /**
+     * Token for opening the change stream from a browser EventSource, which cannot send the
+     * Authorization header; see {@link JwtService#generateStreamToken}.
+     */
+    public AuthResponse streamToken(User user) {
+        return AuthResponse.builder()
+                .token(jwtService.generateStreamToken(user))
+                .email(user.getEmail())
+                .name(user.getName())
+                .build();
+    }
+
     public AuthResponse login(AuthRequest request) {
-        authenticationManager.authenticate(
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getEmail(),
                         request.getPassword()
                 )
         );
 
-        var user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Loaded from its shard by the authentication provider
+        var user = (User) authentication.getPrincipal();
 
         var jwtToken = jwtService.generateToken(user);
 
@@ -0,0 +1,47 @@
+package com.tasktracker.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque sync position over the (changedAt, id) ordering of task changes and tombstones used by
+ * GET /api/tasks/changes. Tombstones deleted before {@code tombstonesFrom} are skipped: after a
+ * full sync the client cannot hold tasks deleted before it started.
+ */
+record ChangeToken(LocalDateTime changedAt, Long id, LocalDateTime tombstonesFrom) {
+
+    static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    static ChangeToken fullSync(LocalDateTime tombstonesFrom) {
+        return new ChangeToken(BEGINNING, 0L, tombstonesFrom);
+    }
+
+    static ChangeToken decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            return new ChangeToken(
+                    LocalDateTime.parse(parts[0]),
+                    Long.parseLong(parts[1]),
+                    LocalDateTime.parse(parts[2])
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid sync token");
+        }
+    }
+
+    ChangeToken at(LocalDateTime changedAt, Long id) {
+        return new ChangeToken(changedAt, id, tombstonesFrom);
+    }
+
+    // Tombstones are read from whichever is later, the position or the full-sync start
+    LocalDateTime knownFrom() {
+        return changedAt.isAfter(tombstonesFrom) ? changedAt : tombstonesFrom;
+    }
+
+    String encode() {
+        String raw = changedAt + "|" + id + "|" + tombstonesFrom;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
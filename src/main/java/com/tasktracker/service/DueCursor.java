@@ -0,0 +1,41 @@
+package com.tasktracker.service;
+
+import com.tasktracker.entity.Task;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position over the (dueDate, id) ordering used by the overdue and due-soon lists.
+ */
+record DueCursor(LocalDateTime dueDate, Long id) {
+
+    private static final String PREFIX = "due|";
+
+    static DueCursor after(Task task) {
+        return new DueCursor(task.getDueDate(), task.getId());
+    }
+
+    static DueCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            int separator = raw.lastIndexOf('|');
+            return new DueCursor(
+                    LocalDateTime.parse(raw.substring(PREFIX.length(), separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = PREFIX + dueDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package com.tasktracker.service;
+
+import com.tasktracker.dto.ExportFormat;
+import com.tasktracker.dto.ExportJobStatus;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+@Getter
+class ExportJob {
+
+    private final String id;
+    private final Long userId;
+    private final ExportFormat format;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+    private volatile LocalDateTime completedAt;
+    private volatile Path file;
+    private volatile long rowCount;
+    private volatile long sizeBytes;
+    private volatile String error;
+    // Guarded by this: downloads in progress, when the last one ended, and whether cleanup took the job
+    private int downloads;
+    private LocalDateTime lastDownloadEnded;
+    private boolean removed;
+
+    ExportJob(String id, Long userId, ExportFormat format) {
+        this.id = id;
+        this.userId = userId;
+        this.format = format;
+    }
+
+    void markRunning() {
+        status = ExportJobStatus.RUNNING;
+    }
+
+    void markCompleted(Path file, long rowCount, long sizeBytes) {
+        this.file = file;
+        this.rowCount = rowCount;
+        this.sizeBytes = sizeBytes;
+        this.completedAt = LocalDateTime.now();
+        this.status = ExportJobStatus.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        this.completedAt = LocalDateTime.now();
+        this.status = ExportJobStatus.FAILED;
+    }
+
+    // False once cleanup has removed the job, whose file is then gone or about to be
+    synchronized boolean startDownload() {
+        if (removed) {
+            return false;
+        }
+        downloads++;
+        return true;
+    }
+
+    synchronized void endDownload() {
+        downloads--;
+        lastDownloadEnded = LocalDateTime.now();
+    }
+
+    /**
+     * Lets cleanup take the job unless a download is in progress or ended after
+     * {@code idleSince}; once taken, no download can start.
+     */
+    synchronized boolean remove(LocalDateTime idleSince) {
+        if (downloads > 0 || (lastDownloadEnded != null && lastDownloadEnded.isAfter(idleSince))) {
+            return false;
+        }
+        removed = true;
+        return true;
+    }
+
+    boolean isFinished() {
+        return status == ExportJobStatus.COMPLETED || status == ExportJobStatus.FAILED;
+    }
+}
@@ -0,0 +1,217 @@
+package com.tasktracker.service;
+
+import com.tasktracker.concurrent.BoundedExecutor;
+import com.tasktracker.datasource.ShardContext;
+import com.tasktracker.dto.ExportFormat;
+import com.tasktracker.dto.ExportJobDTO;
+import com.tasktracker.dto.ExportJobStatus;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.entity.User;
+import com.tasktracker.exception.ExportNotReadyException;
+import com.tasktracker.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportJobService {
+
+    private static final String SPOOL_FILE_PREFIX = "export-";
+
+    private final TaskExportService taskExportService;
+    private final Environment environment;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    // Only users with an export queued or running have an entry
+    private final Map<Long, Integer> activeJobsByUser = new ConcurrentHashMap<>();
+    private BoundedExecutor executor;
+
+    @Value("${export.jobs.pool-size}")
+    private int poolSize;
+
+    @Value("${export.jobs.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${export.jobs.max-per-user}")
+    private int maxJobsPerUser;
+
+    @Value("${export.jobs.ttl}")
+    private Duration ttl;
+
+    @Value("${export.jobs.cleanup-interval}")
+    private Duration cleanupInterval;
+
+    @Value("${export.jobs.spool-dir}")
+    private Path spoolDir;
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(spoolDir);
+        // Jobs are kept in memory, so files left over from a previous run can never be downloaded
+        try (Stream<Path> leftovers = Files.list(spoolDir)) {
+            leftovers.filter(path -> path.getFileName().toString().startsWith(SPOOL_FILE_PREFIX))
+                    .forEach(this::deleteQuietly);
+        }
+
+        // Not exposed as a bean: an Executor bean would replace Boot's applicationTaskExecutor
+        executor = new BoundedExecutor("export-", poolSize, queueCapacity, Threading.VIRTUAL.isActive(environment));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public ExportJobDTO createExport(ExportFormat format, String search, TaskStatus status, TaskPriority priority) {
+        User user = getCurrentUser();
+        if (activeJobsByUser.merge(user.getId(), 1, Integer::sum) > maxJobsPerUser) {
+            releaseSlot(user.getId());
+            throw new TooManyRequestsException("Too many exports in progress");
+        }
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), user.getId(), format);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> runExport(job, user, search, status, priority));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            releaseSlot(user.getId());
+            throw new TooManyRequestsException("Export queue is full, try again later");
+        }
+        return toDTO(job);
+    }
+
+    public ExportJobDTO getExport(String id) {
+        return toDTO(findJob(id));
+    }
+
+    /**
+     * The finished file, leased to the caller: cleanup leaves it in place until the returned
+     * ExportFile is closed, so close it once the download is over.
+     */
+    public ExportFile getExportFile(String id) {
+        ExportJob job = findJob(id);
+        if (job.getStatus() == ExportJobStatus.FAILED) {
+            throw new ExportNotReadyException("Export failed", job.getStatus());
+        }
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            throw new ExportNotReadyException("Export is not ready", job.getStatus());
+        }
+        if (!job.startDownload()) {
+            throw new EntityNotFoundException("Export not found with id: " + id);
+        }
+        return new ExportFile(job.getFile(), job.getSizeBytes(), job.getFormat(), job.getCreatedAt(), job::endDownload);
+    }
+
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval}")
+    public void removeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiredBefore = now.minus(ttl);
+        // A download that ended within the last interval may be one the container is about to
+        // send from the file by name; it has the file open once that starts
+        LocalDateTime idleSince = now.minus(cleanupInterval);
+        jobs.values().removeIf(job -> {
+            if (!job.isFinished() || job.getCompletedAt().isAfter(expiredBefore) || !job.remove(idleSince)) {
+                return false;
+            }
+            if (job.getFile() != null) {
+                deleteQuietly(job.getFile());
+            }
+            return true;
+        });
+    }
+
+    private void runExport(ExportJob job, User user, String search, TaskStatus status, TaskPriority priority) {
+        Path file = null;
+        try {
+            job.markRunning();
+            file = Files.createTempFile(spoolDir, SPOOL_FILE_PREFIX, "." + job.getFormat().getExtension());
+            long rowCount;
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+                // Worker threads have no principal to route by
+                rowCount = ShardContext.call(user.getShard(),
+                        () -> taskExportService.write(job.getFormat(), user, search, status, priority, outputStream));
+            }
+            job.markCompleted(file, rowCount, Files.size(file));
+        } catch (Exception e) {
+            log.warn("Export {} failed", job.getId(), e);
+            if (file != null) {
+                deleteQuietly(file);
+            }
+            job.markFailed("Export failed");
+        } finally {
+            releaseSlot(user.getId());
+        }
+    }
+
+    private void releaseSlot(Long userId) {
+        activeJobsByUser.computeIfPresent(userId, (id, active) -> active > 1 ? active - 1 : null);
+    }
+
+    private ExportJob findJob(String id) {
+        ExportJob job = jobs.get(id);
+        if (job == null || !job.getUserId().equals(getCurrentUser().getId())) {
+            throw new EntityNotFoundException("Export not found with id: " + id);
+        }
+        return job;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+
+    private User getCurrentUser() {
+        return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+
+    private ExportJobDTO toDTO(ExportJob job) {
+        boolean completed = job.getStatus() == ExportJobStatus.COMPLETED;
+        return ExportJobDTO.builder()
+                .id(job.getId())
+                .format(job.getFormat())
+                .status(job.getStatus())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .rowCount(completed ? job.getRowCount() : null)
+                .sizeBytes(completed ? job.getSizeBytes() : null)
+                .error(job.getError())
+                .build();
+    }
+
+    public record ExportFile(Path path, long size, ExportFormat format, LocalDateTime createdAt, Runnable release)
+            implements AutoCloseable {
+
+        // Ends the lease from getExportFile
+        @Override
+        public void close() {
+            release.run();
+        }
+    }
+}
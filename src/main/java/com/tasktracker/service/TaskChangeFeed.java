@@ -0,0 +1,374 @@
+package com.tasktracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.concurrent.BoundedExecutor;
+import com.tasktracker.entity.User;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.event.TaskDueEvent;
+import com.tasktracker.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes committed task changes to the owner's open Server-Sent Events streams, so clients no
+ * longer poll the list endpoints to notice writes from other tabs and devices. Reminder and
+ * overdue events from the due-date engine go out on the same streams.
+ * <p>
+ * Streams are async requests: an idle stream holds a socket but no thread. Each event is
+ * rendered once and queued on every stream of its user; a small shared pool writes the queues
+ * out. A stream whose queue fills up is closed rather than allowed to grow, and the client
+ * resumes from its Last-Event-ID. Recent events are kept per user for that, for a bounded time
+ * and count; when they no longer cover the gap the client gets a {@code reset} event and reloads.
+ * <p>
+ * Only writes made by this instance are pushed, and reminders and overdue events only when this
+ * instance fired them. Event ids carry a per-process epoch, so an id issued before a restart or
+ * by another instance always leads to a reset.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskChangeFeed {
+
+    static final String READY_EVENT = "ready";
+    static final String RESET_EVENT = "reset";
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("").build();
+    // Queued after a stream is closed for falling behind; completing must not run on the publishing thread
+    private static final Set<DataWithMediaType> END = Set.of();
+
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    // Users with an open stream, or one that closed within the replay window
+    private final Map<Long, UserFeed> feeds = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private BoundedExecutor executor;
+    private Counter overflows;
+
+    @Value("${feed.max-per-user}")
+    private int maxStreamsPerUser;
+
+    @Value("${feed.buffer-size}")
+    private int bufferSize;
+
+    @Value("${feed.timeout}")
+    private Duration timeout;
+
+    @Value("${feed.replay-window}")
+    private Duration replayWindow;
+
+    @Value("${feed.replay-size}")
+    private int replaySize;
+
+    @Value("${feed.pool-size}")
+    private int poolSize;
+
+    @Value("${feed.queue-capacity}")
+    private int queueCapacity;
+
+    @PostConstruct
+    void init() {
+        // Not exposed as a bean: an Executor bean would replace Boot's applicationTaskExecutor
+        executor = new BoundedExecutor("feed-", poolSize, queueCapacity, Threading.VIRTUAL.isActive(environment));
+        Gauge.builder("tasks.feed.streams", openStreams, AtomicInteger::get)
+                .description("Open task change streams")
+                .register(meterRegistry);
+        overflows = Counter.builder("tasks.feed.overflows")
+                .description("Streams closed because the client fell too far behind")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        feeds.values().forEach(feed -> feed.streams.forEach(Stream::close));
+        executor.shutdown();
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(getCurrentUser().getId(), lastEventId);
+    }
+
+    SseEmitter subscribe(Long userId, String lastEventId) {
+        SseEmitter emitter = createEmitter(timeout.toMillis());
+        Stream stream = new Stream(userId, emitter);
+        emitter.onTimeout(stream::close);
+        emitter.onError(error -> stream.close());
+        emitter.onCompletion(() -> remove(userId, stream));
+        feeds.compute(userId, (id, feed) -> {
+            if (feed == null) {
+                // Nothing was recorded for this user before now, so only a position from now on can resume
+                feed = new UserFeed(sequence.get());
+            }
+            if (feed.streams.size() >= maxStreamsPerUser) {
+                throw new TooManyRequestsException("Too many open change streams");
+            }
+            feed.streams.add(stream);
+            openStreams.incrementAndGet();
+
+            // Replay and registration happen under the same lock, so nothing is missed or sent twice
+            long position = sequence.get();
+            long resumeFrom = resumePosition(lastEventId, feed, position);
+            if (resumeFrom >= 0) {
+                feed.history.stream()
+                        .filter(event -> event.sequence() > resumeFrom)
+                        .forEach(event -> stream.offer(event.frame()));
+            }
+            stream.offer(frame(position, resumeFrom >= 0 ? READY_EVENT : RESET_EVENT, "{}"));
+            return feed;
+        });
+        return emitter;
+    }
+
+    // Pushed after commit, so a client that reloads on the event sees the change
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        push(event.userId(), event.type().name(), event.task());
+    }
+
+    // "reminder" and "overdue" events carry the task id and due date
+    @EventListener
+    public void onTaskDue(TaskDueEvent event) {
+        push(event.userId(), event.type().name(), Map.of("id", event.taskId(), "dueDate", event.dueDate()));
+    }
+
+    private void push(Long userId, String type, Object payload) {
+        if (!feeds.containsKey(userId)) {
+            return;
+        }
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        feeds.computeIfPresent(userId, (id, feed) -> {
+            long eventSequence = sequence.incrementAndGet();
+            FeedEvent feedEvent = new FeedEvent(eventSequence, System.currentTimeMillis(),
+                    frame(eventSequence, type.toLowerCase(Locale.ROOT), data));
+            feed.history.addLast(feedEvent);
+            if (feed.history.size() > replaySize) {
+                feed.droppedUpTo = feed.history.removeFirst().sequence();
+            }
+            feed.streams.forEach(stream -> stream.offer(feedEvent.frame()));
+            return feed;
+        });
+    }
+
+    /**
+     * Keeps proxies and load balancers from closing quiet streams, finds streams whose client is
+     * gone (the write fails), and forgets replay history older than the replay window.
+     */
+    @Scheduled(fixedDelayString = "${feed.heartbeat-interval}", initialDelayString = "${feed.heartbeat-interval}")
+    public void heartbeat() {
+        long expiredBefore = System.currentTimeMillis() - replayWindow.toMillis();
+        for (Long userId : feeds.keySet()) {
+            feeds.computeIfPresent(userId, (id, feed) -> {
+                while (!feed.history.isEmpty() && feed.history.peekFirst().createdAt() < expiredBefore) {
+                    feed.droppedUpTo = feed.history.removeFirst().sequence();
+                }
+                if (feed.streams.isEmpty() && feed.lastStreamClosedAt < expiredBefore) {
+                    return null;
+                }
+                feed.streams.forEach(Stream::ping);
+                return feed;
+            });
+        }
+    }
+
+    SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    // Sequence to replay after, or -1 when the id cannot be resumed from
+    private long resumePosition(String lastEventId, UserFeed feed, long position) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return position;
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            long lastSequence = Long.parseLong(lastEventId.substring(separator + 1));
+            return lastSequence >= feed.droppedUpTo && lastSequence <= position ? lastSequence : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Not a compute call: streams are closed from inside them, and the list is safe on its own
+    private void remove(Long userId, Stream stream) {
+        UserFeed feed = feeds.get(userId);
+        if (feed != null && feed.streams.remove(stream)) {
+            openStreams.decrementAndGet();
+            feed.lastStreamClosedAt = System.currentTimeMillis();
+        }
+    }
+
+    private Set<DataWithMediaType> frame(long eventSequence, String name, String data) {
+        return SseEmitter.event()
+                .id(epoch + "-" + eventSequence)
+                .name(name)
+                .data(data)
+                .build();
+    }
+
+    private User getCurrentUser() {
+        return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+
+    private record FeedEvent(long sequence, long createdAt, Set<DataWithMediaType> frame) {
+    }
+
+    // Guarded by the feeds map: only changed inside compute calls for the user, except removals
+    private static final class UserFeed {
+        private final List<Stream> streams = new CopyOnWriteArrayList<>();
+        private final Deque<FeedEvent> history = new ArrayDeque<>();
+        // Highest sequence no longer in history; resuming from below it could miss events
+        private long droppedUpTo;
+        private volatile long lastStreamClosedAt = System.currentTimeMillis();
+
+        private UserFeed(long droppedUpTo) {
+            this.droppedUpTo = droppedUpTo;
+        }
+    }
+
+    /**
+     * One open stream with its bounded queue of frames waiting to be written. At most one flush
+     * per stream is queued or running, so frames go out in order.
+     */
+    private final class Stream {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Deque<Set<DataWithMediaType>> pending = new ArrayDeque<>();
+        private boolean flushing;
+        private boolean closed;
+
+        private Stream(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> frame) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.size() >= bufferSize) {
+                    overflows.increment();
+                    closed = true;
+                    pending.clear();
+                    frame = END;
+                }
+                pending.addLast(frame);
+                if (flushing) {
+                    return;
+                }
+                flushing = true;
+            }
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                drop();
+            }
+        }
+
+        // Heartbeats only matter on a quiet stream
+        void ping() {
+            boolean idle;
+            synchronized (this) {
+                idle = pending.isEmpty() && !flushing;
+            }
+            if (idle) {
+                offer(HEARTBEAT);
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            complete();
+        }
+
+        // Unlike close(), also runs when the stream was already closed but its end was not written yet
+        private void drop() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            complete();
+        }
+
+        // After a failed write the container never reports completion, so the stream is removed here
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("Could not complete change stream", e);
+            }
+            remove(userId, this);
+        }
+
+        private void flush() {
+            while (true) {
+                Set<DataWithMediaType> frame;
+                synchronized (this) {
+                    frame = pending.pollFirst();
+                    if (frame == null) {
+                        flushing = false;
+                        return;
+                    }
+                }
+                if (frame == END) {
+                    complete();
+                    return;
+                }
+                try {
+                    emitter.send(frame);
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away
+                    drop();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.tasktracker.service;
+
+import com.tasktracker.event.TaskChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-user version of the task data, used to build ETags for the list endpoints. It is the
+ * users.task_data_version column, incremented in the transaction of every task write, so all
+ * instances read the same version and a tag stays valid across restarts. Moving a user to
+ * another shard carries the column along.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskDataVersions {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Read on the connection of the caller's transaction, so from the database its data comes from
+    public long current(Long userId) {
+        Long version = jdbcTemplate.queryForObject(
+                "SELECT task_data_version FROM users WHERE id = ?", Long.class, userId);
+        return version != null ? version : 0L;
+    }
+
+    /**
+     * The version the current transaction committed the user's task data at, for after-commit
+     * listeners of its task changes; null when it changed no task of theirs, or outside a
+     * transaction.
+     */
+    public Long committedVersion(Long userId) {
+        @SuppressWarnings("unchecked")
+        Map<Long, Long> changed = (Map<Long, Long>) TransactionSynchronizationManager.getResource(this);
+        return changed != null ? changed.get(userId) : null;
+    }
+
+    /**
+     * Strong ETag for the user's current data. The variant distinguishes representations of the
+     * same data, such as different query parameters.
+     */
+    public String eTag(Long userId, String variant) {
+        return "\"" + userId + "-" + current(userId) + "-" + Integer.toHexString(variant.hashCode()) + "\"";
+    }
+
+    // Collected per transaction and bumped once per user just before commit, which keeps the row
+    // lock short and a bulk write to one update
+    @EventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(event.userId());
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<Long, Long> changed = (Map<Long, Long>) TransactionSynchronizationManager.getResource(this);
+        if (changed == null) {
+            Map<Long, Long> users = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, users);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    users.replaceAll((userId, version) -> bump(userId));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TaskDataVersions.this);
+                }
+
+                // Kept until the after-commit listeners ordered before it have read committedVersion
+                @Override
+                public int getOrder() {
+                    return Ordered.LOWEST_PRECEDENCE;
+                }
+            });
+            changed = users;
+        }
+        changed.putIfAbsent(event.userId(), null);
+    }
+
+    // Read back under the row lock the update took, so it is this transaction's version
+    private Long bump(Long userId) {
+        jdbcTemplate.update("UPDATE users SET task_data_version = task_data_version + 1 WHERE id = ?", userId);
+        return current(userId);
+    }
+}
@@ -0,0 +1,290 @@
+package com.tasktracker.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.dto.ExportFormat;
+import com.tasktracker.entity.Task;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.entity.User;
+import com.tasktracker.repository.TaskRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class TaskExportService {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final String[] HEADERS = {"ID", "Title", "Description", "Status", "Priority", "Created At", "Updated At", "Due Date"};
+    // Widths in characters; autoSizeColumn would need every row in memory
+    private static final int[] COLUMN_WIDTHS = {10, 40, 60, 14, 10, 18, 18, 18};
+    private static final int ROW_WINDOW = 100;
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_CELL_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final TaskRepository taskRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public long write(ExportFormat format, User user, String search, TaskStatus status, TaskPriority priority,
+                      OutputStream outputStream) throws IOException {
+        CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            long rowCount = switch (format) {
+                case XLSX -> writeExcel(user, search, status, priority, countingStream);
+                case CSV -> writeCsv(user, search, status, priority, countingStream);
+                case NDJSON -> writeNdjson(user, search, status, priority, countingStream);
+            };
+            outcome = "success";
+            exportSummary("tasks.export.rows", null, 1e6, format).record(rowCount);
+            exportSummary("tasks.export.size", "bytes", 1e9, format).record(countingStream.count);
+            return rowCount;
+        } finally {
+            sample.stop(Timer.builder("tasks.export.duration")
+                    .tag("format", format.name())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(10))
+                    .maximumExpectedValue(Duration.ofMinutes(10))
+                    .register(meterRegistry));
+        }
+    }
+
+    // Exports are rare next to the rows they write, so meters are looked up per call
+    private DistributionSummary exportSummary(String name, String baseUnit, double maxExpected, ExportFormat format) {
+        return DistributionSummary.builder(name)
+                .baseUnit(baseUnit)
+                .tag("format", format.name())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(maxExpected)
+                .register(meterRegistry);
+    }
+
+    public long writeExcel(User user, String search, TaskStatus status, TaskPriority priority,
+                           OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Tasks");
+
+            // Create header style
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            // Create header row
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(HEADERS[i]);
+                cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+            }
+
+            // Fill data rows chunk by chunk; only ROW_WINDOW rows stay in memory
+            int rowNum = 1;
+            List<Task> chunk = taskRepository.searchTasksFirstPage(user, search, status, priority,
+                    PageRequest.ofSize(CHUNK_SIZE));
+            while (!chunk.isEmpty()) {
+                for (Task task : chunk) {
+                    writeRow(sheet.createRow(rowNum++), task);
+                }
+                if (chunk.size() < CHUNK_SIZE) {
+                    break;
+                }
+                Task last = chunk.get(chunk.size() - 1);
+                chunk = taskRepository.searchTasksAfter(user, search, status, priority,
+                        last.getCreatedAt(), last.getId(), PageRequest.ofSize(CHUNK_SIZE));
+            }
+
+            workbook.write(outputStream);
+            outputStream.flush();
+            return rowNum - 1;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    public long writeCsv(User user, String search, TaskStatus status, TaskPriority priority,
+                         OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        writer.write(String.join(",", HEADERS));
+        writer.write("\r\n");
+
+        long rowCount = streamTasks(user, search, status, priority, task -> {
+            writer.write(String.valueOf(task.getId()));
+            writer.write(',');
+            writeCsvValue(writer, task.getTitle());
+            writer.write(',');
+            writeCsvValue(writer, task.getDescription());
+            writer.write(',');
+            writer.write(task.getStatus().name());
+            writer.write(',');
+            writer.write(task.getPriority().name());
+            writer.write(',');
+            writer.write(format(task.getCreatedAt()));
+            writer.write(',');
+            writer.write(format(task.getUpdatedAt()));
+            writer.write(',');
+            writer.write(format(task.getDueDate()));
+            writer.write("\r\n");
+        });
+        writer.flush();
+        return rowCount;
+    }
+
+    public long writeNdjson(User user, String search, TaskStatus status, TaskPriority priority,
+                            OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        long rowCount = streamTasks(user, search, status, priority, task -> {
+            generator.writeStartObject();
+            generator.writeNumberField("id", task.getId());
+            generator.writeStringField("title", task.getTitle());
+            generator.writeStringField("description", task.getDescription());
+            generator.writeStringField("status", task.getStatus().name());
+            generator.writeStringField("priority", task.getPriority().name());
+            generator.writeStringField("createdAt", formatIso(task.getCreatedAt()));
+            generator.writeStringField("updatedAt", formatIso(task.getUpdatedAt()));
+            generator.writeStringField("dueDate", formatIso(task.getDueDate()));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        });
+        generator.close();
+        return rowCount;
+    }
+
+    // Rows are detached as soon as they are written so the persistence context stays empty
+    private long streamTasks(User user, String search, TaskStatus status, TaskPriority priority,
+                             TaskRowWriter rowWriter) throws IOException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        try {
+            Long rowCount = transactionTemplate.execute(tx -> {
+                long count = 0;
+                try (Stream<Task> tasks = taskRepository.streamTasks(user, search, status, priority)) {
+                    Iterator<Task> iterator = tasks.iterator();
+                    while (iterator.hasNext()) {
+                        Task task = iterator.next();
+                        rowWriter.write(task);
+                        entityManager.detach(task);
+                        count++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+            return rowCount != null ? rowCount : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private String formatIso(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+    }
+
+    private void writeRow(Row row, Task task) {
+        row.createCell(0).setCellValue(task.getId());
+        row.createCell(1).setCellValue(task.getTitle());
+        row.createCell(2).setCellValue(truncate(task.getDescription()));
+        row.createCell(3).setCellValue(task.getStatus().name());
+        row.createCell(4).setCellValue(task.getPriority().name());
+        row.createCell(5).setCellValue(format(task.getCreatedAt()));
+        row.createCell(6).setCellValue(format(task.getUpdatedAt()));
+        row.createCell(7).setCellValue(format(task.getDueDate()));
+    }
+
+    private String truncate(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.length() > MAX_CELL_LENGTH ? value.substring(0, MAX_CELL_LENGTH) : value;
+    }
+
+    private String format(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.format(DATE_FORMATTER) : "";
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    @FunctionalInterface
+    private interface TaskRowWriter {
+        void write(Task task) throws IOException;
+    }
+}
@@ -0,0 +1,40 @@
+package com.tasktracker.service;
+
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.entity.Task;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+
+/**
+ * Converts between tasks and their DTOs. Holds no state, so it can be called from anywhere,
+ * including the benchmarks.
+ */
+final class TaskMapper {
+
+    private TaskMapper() {
+    }
+
+    static TaskDTO toDTO(Task task) {
+        return TaskDTO.builder()
+                .id(task.getId())
+                .title(task.getTitle())
+                .description(task.getDescription())
+                .status(task.getStatus())
+                .priority(task.getPriority())
+                .createdAt(task.getCreatedAt())
+                .updatedAt(task.getUpdatedAt())
+                .dueDate(task.getDueDate())
+                .build();
+    }
+
+    // New tasks default to TODO and MEDIUM; the id, owner and timestamps are left to the caller
+    static Task toEntity(TaskDTO dto) {
+        return Task.builder()
+                .title(dto.getTitle())
+                .description(dto.getDescription())
+                .status(dto.getStatus() != null ? dto.getStatus() : TaskStatus.TODO)
+                .priority(dto.getPriority() != null ? dto.getPriority() : TaskPriority.MEDIUM)
+                .dueDate(dto.getDueDate())
+                .build();
+    }
+}
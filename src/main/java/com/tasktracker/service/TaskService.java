@@ -1,23 +1,56 @@
 package com.tasktracker.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.datasource.ShardContext;
+import com.tasktracker.datasource.ShardRoutingDataSource;
+import com.tasktracker.dto.BulkTaskResponse;
+import com.tasktracker.dto.BulkTaskResult;
+import com.tasktracker.dto.ExportFormat;
+import com.tasktracker.dto.TaskChanges;
 import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.dto.TaskField;
+import com.tasktracker.dto.TaskPage;
+import com.tasktracker.dto.TaskStatsDTO;
 import com.tasktracker.entity.Task;
 import com.tasktracker.entity.TaskPriority;
 import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.entity.TaskTombstone;
 import com.tasktracker.entity.User;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.exception.SyncTokenExpiredException;
+import com.tasktracker.exception.UserMovingException;
 import com.tasktracker.repository.TaskRepository;
+import com.tasktracker.repository.TaskTombstoneRepository;
+import com.tasktracker.search.TaskSearchIndex;
+import com.tasktracker.stats.TaskStatsService;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.time.format.DateTimeFormatter;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,140 +58,626 @@ import java.util.stream.Collectors;
 public class TaskService {
 
     private final TaskRepository taskRepository;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private final TaskTombstoneRepository taskTombstoneRepository;
+    private final TaskExportService taskExportService;
+    private final TaskSearchIndex taskSearchIndex;
+    private final TaskStatsService taskStatsService;
+    private final TaskDataVersions taskDataVersions;
+    private final ShardRoutingDataSource shards;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int ID_BATCH_SIZE = 1000;
+    private static final int MAX_BULK_SIZE = 500;
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("title", "description", "status", "priority", "dueDate");
+    private static final Set<String> NULLABLE_FIELDS = Set.of("description", "dueDate");
+
+    @Value("${sync.commit-lag}")
+    private Duration commitLag;
+
+    @Value("${sync.tombstone-ttl}")
+    private Duration tombstoneTtl;
+
+    @Value("${stats.due-soon}")
+    private Duration dueSoon;
 
     private User getCurrentUser() {
         return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
     }
 
+    // Writes made while the user's rows are copied to another shard would be left behind
+    private User getWritingUser() {
+        User user = getCurrentUser();
+        if (user.isMoving()) {
+            throw new UserMovingException("Tasks are being moved, try again shortly");
+        }
+        return user;
+    }
+
+    @Transactional(readOnly = true)
     public List<TaskDTO> getAllTasks() {
+        return getAllTasks(null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaskDTO> getAllTasks(Set<TaskField> fields) {
         User user = getCurrentUser();
+        if (fields != null) {
+            return taskRepository.findProjected(user, fields, null, null, null, null, null, null);
+        }
         return taskRepository.findByUserOrderByCreatedAtDesc(user)
                 .stream()
-                .map(this::toDTO)
+                .map(TaskMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public TaskPage getTasksPage(String cursor, Integer limit) {
+        return getTasksPage(cursor, limit, null);
+    }
+
+    @Transactional(readOnly = true)
+    public TaskPage getTasksPage(String cursor, Integer limit, Set<TaskField> fields) {
+        User user = getCurrentUser();
+        int pageSize = resolvePageSize(limit);
+        if (fields != null) {
+            return findProjectedPage(user, fields, null, null, null, cursor, pageSize);
+        }
+        PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+
+        List<Task> tasks;
+        if (cursor == null || cursor.isEmpty()) {
+            tasks = taskRepository.findFirstPageByUser(user, pageRequest);
+        } else {
+            TaskCursor after = TaskCursor.decode(cursor);
+            tasks = taskRepository.findPageByUserAfter(user, after.createdAt(), after.id(), pageRequest);
+        }
+        return toPage(tasks, pageSize);
+    }
+
+    /**
+     * Tasks created or updated, and ids of tasks deleted, after the given token, oldest change
+     * first; without a token every task is returned. Reads only rows changed since the token.
+     * The next token never moves past now minus sync.commit-lag, so a write stamped but not yet
+     * committed during this call is returned by a later one; changes within that window may be
+     * sent twice. Runs on the primary: a replica further behind than the commit lag would let
+     * the token move past changes it has not received yet.
+     */
+    public TaskChanges getChanges(String since, Integer limit) {
+        User user = getCurrentUser();
+        int pageSize = resolvePageSize(limit);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.minus(commitLag);
+
+        ChangeToken token;
+        if (since == null || since.isEmpty()) {
+            token = ChangeToken.fullSync(horizon);
+        } else {
+            token = ChangeToken.decode(since);
+            if (token.knownFrom().isBefore(now.minus(tombstoneTtl))) {
+                throw new SyncTokenExpiredException("Sync token expired, reload the task list");
+            }
+        }
+
+        PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+        List<Task> tasks = taskRepository.findChangedAfter(user, token.changedAt(), token.id(), pageRequest);
+        boolean skipOlderTombstones = token.tombstonesFrom().isAfter(token.changedAt());
+        List<TaskTombstone> tombstones = taskTombstoneRepository.findDeletedAfter(user.getId(),
+                skipOlderTombstones ? token.tombstonesFrom() : token.changedAt(),
+                skipOlderTombstones ? 0L : token.id(), pageRequest);
+
+        // Merge both in (changedAt, id) order so one position covers both
+        List<TaskDTO> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        ChangeToken next = token;
+        int t = 0;
+        int d = 0;
+        while (changed.size() + deleted.size() < pageSize && (t < tasks.size() || d < tombstones.size())) {
+            boolean nextIsTask = d == tombstones.size() || (t < tasks.size()
+                    && isBefore(tasks.get(t).getUpdatedAt(), tasks.get(t).getId(),
+                    tombstones.get(d).getDeletedAt(), tombstones.get(d).getTaskId()));
+            if (nextIsTask) {
+                Task task = tasks.get(t++);
+                changed.add(TaskMapper.toDTO(task));
+                next = token.at(task.getUpdatedAt(), task.getId());
+            } else {
+                TaskTombstone tombstone = tombstones.get(d++);
+                deleted.add(tombstone.getTaskId());
+                next = token.at(tombstone.getDeletedAt(), tombstone.getTaskId());
+            }
+        }
+        boolean hasMore = t < tasks.size() || d < tombstones.size();
+        if (!hasMore) {
+            // Everything up to now was read; only writes stamped before the horizon are known to be committed
+            next = token.at(horizon, 0L);
+        }
+        return TaskChanges.builder()
+                .changed(changed)
+                .deleted(deleted)
+                .nextToken(next.encode())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${sync.compaction-interval}", initialDelayString = "${sync.compaction-interval}")
+    public void compactTombstones() {
+        LocalDateTime before = LocalDateTime.now().minus(tombstoneTtl);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            ShardContext.run(shard, () -> taskTombstoneRepository.deleteByDeletedAtBefore(before));
+        }
+    }
+
+    @Transactional(readOnly = true)
     public TaskDTO getTaskById(Long id) {
         User user = getCurrentUser();
-        Task task = taskRepository.findByIdAndUser(id, user)
-                .orElseThrow(() -> new EntityNotFoundException("Task not found with id: " + id));
-        return toDTO(task);
+        return TaskMapper.toDTO(findOwnedTask(id, user));
+    }
+
+    /**
+     * Runs {@code read} with the ETag of the current user's task data. The tag is read first, in
+     * the read-only transaction the reads inside {@code read} join, so it comes from the same
+     * database as the data and is never newer than the data it is sent with.
+     */
+    @Transactional(readOnly = true)
+    public <T> T readWithDataETag(String variant, Function<String, T> read) {
+        return read.apply(taskDataVersions.eTag(getCurrentUser().getId(), variant));
     }
 
+    public TaskStatsDTO getStats() {
+        return taskStatsService.getStats(getCurrentUser().getId());
+    }
+
+    /**
+     * The current user's open tasks that are past due, most overdue first, a page at a time over
+     * the (user_id, due_date) index.
+     */
+    @Transactional(readOnly = true)
+    public TaskPage getOverdueTasks(String cursor, Integer limit) {
+        User user = getCurrentUser();
+        int pageSize = resolvePageSize(limit);
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+        return toDuePage(cursor == null || cursor.isEmpty()
+                ? taskRepository.findOpenDueBefore(user.getId(), now, pageRequest)
+                : findOpenDueAfter(user, DueCursor.decode(cursor), now, pageRequest), pageSize);
+    }
+
+    /**
+     * The current user's open tasks due within stats.due-soon, soonest first, a page at a time;
+     * the same window as the dueSoon count in the statistics.
+     */
+    @Transactional(readOnly = true)
+    public TaskPage getDueSoonTasks(String cursor, Integer limit) {
+        User user = getCurrentUser();
+        int pageSize = resolvePageSize(limit);
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+        return toDuePage(cursor == null || cursor.isEmpty()
+                ? taskRepository.findOpenDueBetween(user.getId(), now, now.plus(dueSoon), pageRequest)
+                : findOpenDueAfter(user, DueCursor.decode(cursor), now.plus(dueSoon), pageRequest), pageSize);
+    }
+
+    @Transactional(readOnly = true)
     public List<TaskDTO> searchTasks(String search, TaskStatus status, TaskPriority priority) {
+        return searchTasks(search, status, priority, null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaskDTO> searchTasks(String search, TaskStatus status, TaskPriority priority, Set<TaskField> fields) {
         User user = getCurrentUser();
+        if (useSearchIndex(search)) {
+            return findRanked(user, taskSearchIndex.search(user.getId(), search, status, priority, 0, Integer.MAX_VALUE), fields);
+        }
+        if (fields != null) {
+            return taskRepository.findProjected(user, fields, search, status, priority, null, null, null);
+        }
         return taskRepository.searchTasks(user, search, status, priority)
                 .stream()
-                .map(this::toDTO)
+                .map(TaskMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public TaskPage searchTasksPage(String search, TaskStatus status, TaskPriority priority,
+                                    String cursor, Integer limit) {
+        return searchTasksPage(search, status, priority, cursor, limit, null);
+    }
+
+    @Transactional(readOnly = true)
+    public TaskPage searchTasksPage(String search, TaskStatus status, TaskPriority priority,
+                                    String cursor, Integer limit, Set<TaskField> fields) {
+        User user = getCurrentUser();
+        int pageSize = resolvePageSize(limit);
+
+        if (useSearchIndex(search)) {
+            int offset = cursor == null || cursor.isEmpty() ? 0 : RankCursor.decode(cursor).offset();
+            // No cursor we issue gets here; offset + pageSize + 1 would overflow in the index
+            if (offset > Integer.MAX_VALUE - pageSize - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            List<Long> ids = taskSearchIndex.search(user.getId(), search, status, priority, offset, pageSize + 1);
+            boolean hasMore = ids.size() > pageSize;
+            return TaskPage.builder()
+                    .items(findRanked(user, hasMore ? ids.subList(0, pageSize) : ids, fields))
+                    .nextCursor(hasMore ? new RankCursor(offset + pageSize).encode() : null)
+                    .build();
+        }
+        if (fields != null) {
+            return findProjectedPage(user, fields, search, status, priority, cursor, pageSize);
+        }
+
+        PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+        List<Task> tasks;
+        if (cursor == null || cursor.isEmpty()) {
+            tasks = taskRepository.searchTasksFirstPage(user, search, status, priority, pageRequest);
+        } else {
+            TaskCursor after = TaskCursor.decode(cursor);
+            tasks = taskRepository.searchTasksAfter(user, search, status, priority,
+                    after.createdAt(), after.id(), pageRequest);
+        }
+        return toPage(tasks, pageSize);
+    }
+
     @Transactional
     public TaskDTO createTask(TaskDTO taskDTO) {
-        User user = getCurrentUser();
-        Task task = toEntity(taskDTO);
+        User user = getWritingUser();
+        Task task = TaskMapper.toEntity(taskDTO);
         task.setUser(user);
         Task savedTask = taskRepository.save(task);
-        return toDTO(savedTask);
+        TaskDTO created = TaskMapper.toDTO(savedTask);
+        eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, user.getId(), created));
+        return created;
     }
 
     @Transactional
     public TaskDTO updateTask(Long id, TaskDTO taskDTO) {
-        User user = getCurrentUser();
-        Task existingTask = taskRepository.findByIdAndUser(id, user)
-                .orElseThrow(() -> new EntityNotFoundException("Task not found with id: " + id));
+        User user = getWritingUser();
+        Task existingTask = findOwnedTask(id, user);
 
-        existingTask.setTitle(taskDTO.getTitle());
-        existingTask.setDescription(taskDTO.getDescription());
-        existingTask.setStatus(taskDTO.getStatus() != null ? taskDTO.getStatus() : existingTask.getStatus());
-        existingTask.setPriority(taskDTO.getPriority() != null ? taskDTO.getPriority() : existingTask.getPriority());
-        existingTask.setDueDate(taskDTO.getDueDate());
+        TaskDTO previous = TaskMapper.toDTO(existingTask);
+        applyUpdate(existingTask, taskDTO);
 
         Task updatedTask = taskRepository.save(existingTask);
-        return toDTO(updatedTask);
+        TaskDTO updated = TaskMapper.toDTO(updatedTask);
+        eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, user.getId(), updated, previous));
+        return updated;
+    }
+
+    /**
+     * Applies a JSON merge patch (RFC 7396): fields in the patch replace the stored value, null
+     * clears it and absent fields are left alone. Only the columns that actually changed are
+     * written.
+     */
+    @Transactional
+    public TaskDTO patchTask(Long id, JsonNode patch) {
+        checkPatch(patch);
+        User user = getWritingUser();
+        Task existingTask = findOwnedTask(id, user);
+
+        TaskDTO previous = TaskMapper.toDTO(existingTask);
+        TaskDTO patched;
+        try {
+            patched = objectMapper.readerForUpdating(TaskMapper.toDTO(existingTask)).readValue(patch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid patch: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String error = validate(patched);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        if (patched.equals(previous)) {
+            return previous;
+        }
+
+        applyUpdate(existingTask, patched);
+        // Flushed here so the response carries the new updatedAt
+        TaskDTO updated = TaskMapper.toDTO(taskRepository.saveAndFlush(existingTask));
+        eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, user.getId(), updated, previous));
+        return updated;
     }
 
     @Transactional
     public void deleteTask(Long id) {
-        User user = getCurrentUser();
-        Task task = taskRepository.findByIdAndUser(id, user)
-                .orElseThrow(() -> new EntityNotFoundException("Task not found with id: " + id));
+        User user = getWritingUser();
+        Task task = findOwnedTask(id, user);
         taskRepository.delete(task);
+        taskTombstoneRepository.save(tombstone(task.getId(), user));
+        eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.DELETED, user.getId(), TaskMapper.toDTO(task)));
     }
 
-    public byte[] exportToExcel(String search, TaskStatus status, TaskPriority priority) throws IOException {
+    @Transactional(readOnly = true)
+    public BulkTaskResponse getTasks(List<Long> ids) {
+        checkBulkSize(ids);
         User user = getCurrentUser();
-        List<Task> tasks = taskRepository.searchTasks(user, search, status, priority);
+        Map<Long, Task> tasksById = findByIds(user, ids);
 
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+        List<BulkTaskResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Task task = tasksById.get(ids.get(i));
+            results.add(task != null
+                    ? success(i, HttpStatus.OK, TaskMapper.toDTO(task))
+                    : failure(i, ids.get(i), HttpStatus.NOT_FOUND, "Task not found with id: " + ids.get(i)));
+        }
+        return toBulkResponse(results);
+    }
 
-            Sheet sheet = workbook.createSheet("Tasks");
+    // All valid items are persisted in one transaction; ids come from the pooled sequence so the
+    // inserts are sent to the database in JDBC batches when the transaction flushes
+    @Transactional
+    public BulkTaskResponse createTasks(List<TaskDTO> taskDTOs) {
+        checkBulkSize(taskDTOs);
+        User user = getWritingUser();
 
-            // Create header style
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        BulkTaskResult[] results = new BulkTaskResult[taskDTOs.size()];
+        List<Integer> indexes = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < taskDTOs.size(); i++) {
+            String error = validate(taskDTOs.get(i));
+            if (error != null) {
+                results[i] = failure(i, null, HttpStatus.BAD_REQUEST, error);
+                continue;
+            }
+            Task task = TaskMapper.toEntity(taskDTOs.get(i));
+            task.setUser(user);
+            indexes.add(i);
+            tasks.add(task);
+        }
 
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"ID", "Title", "Description", "Status", "Priority", "Created At", "Updated At", "Due Date"};
+        List<Task> savedTasks = taskRepository.saveAll(tasks);
+        for (int i = 0; i < savedTasks.size(); i++) {
+            TaskDTO created = TaskMapper.toDTO(savedTasks.get(i));
+            results[indexes.get(i)] = success(indexes.get(i), HttpStatus.CREATED, created);
+            eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, user.getId(), created));
+        }
+        return toBulkResponse(List.of(results));
+    }
+
+    @Transactional
+    public BulkTaskResponse updateTasks(List<TaskDTO> taskDTOs) {
+        checkBulkSize(taskDTOs);
+        User user = getWritingUser();
+        Map<Long, Task> tasksById = findByIds(user, taskDTOs.stream()
+                .map(TaskDTO::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
 
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
+        BulkTaskResult[] results = new BulkTaskResult[taskDTOs.size()];
+        List<Integer> indexes = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>();
+        List<TaskDTO> previous = new ArrayList<>();
+        for (int i = 0; i < taskDTOs.size(); i++) {
+            TaskDTO taskDTO = taskDTOs.get(i);
+            if (taskDTO.getId() == null) {
+                results[i] = failure(i, null, HttpStatus.BAD_REQUEST, "Task id is required");
+                continue;
             }
+            Task task = tasksById.get(taskDTO.getId());
+            if (task == null) {
+                results[i] = failure(i, taskDTO.getId(), HttpStatus.NOT_FOUND, "Task not found with id: " + taskDTO.getId());
+                continue;
+            }
+            String error = validate(taskDTO);
+            if (error != null) {
+                results[i] = failure(i, taskDTO.getId(), HttpStatus.BAD_REQUEST, error);
+                continue;
+            }
+            previous.add(TaskMapper.toDTO(task));
+            applyUpdate(task, taskDTO);
+            indexes.add(i);
+            tasks.add(task);
+        }
+
+        // Flush so the batched updates run and @PreUpdate has set updatedAt before mapping
+        taskRepository.flush();
+        for (int i = 0; i < tasks.size(); i++) {
+            TaskDTO updated = TaskMapper.toDTO(tasks.get(i));
+            results[indexes.get(i)] = success(indexes.get(i), HttpStatus.OK, updated);
+            eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, user.getId(), updated, previous.get(i)));
+        }
+        return toBulkResponse(List.of(results));
+    }
+
+    @Transactional
+    public BulkTaskResponse deleteTasks(List<Long> ids) {
+        checkBulkSize(ids);
+        User user = getWritingUser();
+        Map<Long, Task> tasksById = findByIds(user, ids);
+        if (!tasksById.isEmpty()) {
+            // Removed one by one rather than with a bulk DELETE, which would clear the whole tasks
+            // cache region; the deletes still go out in JDBC batches on flush
+            taskRepository.deleteAll(tasksById.values());
+            taskTombstoneRepository.saveAll(tasksById.keySet().stream()
+                    .map(id -> tombstone(id, user))
+                    .collect(Collectors.toList()));
+        }
 
-            // Fill data rows
-            int rowNum = 1;
-            for (Task task : tasks) {
-                Row row = sheet.createRow(rowNum++);
-
-                row.createCell(0).setCellValue(task.getId());
-                row.createCell(1).setCellValue(task.getTitle());
-                row.createCell(2).setCellValue(task.getDescription() != null ? task.getDescription() : "");
-                row.createCell(3).setCellValue(task.getStatus().name());
-                row.createCell(4).setCellValue(task.getPriority().name());
-                row.createCell(5).setCellValue(task.getCreatedAt() != null ? task.getCreatedAt().format(DATE_FORMATTER) : "");
-                row.createCell(6).setCellValue(task.getUpdatedAt() != null ? task.getUpdatedAt().format(DATE_FORMATTER) : "");
-                row.createCell(7).setCellValue(task.getDueDate() != null ? task.getDueDate().format(DATE_FORMATTER) : "");
+        List<BulkTaskResult> results = new ArrayList<>(ids.size());
+        Set<Long> deleted = new LinkedHashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Task task = tasksById.get(ids.get(i));
+            if (task == null) {
+                results.add(failure(i, ids.get(i), HttpStatus.NOT_FOUND, "Task not found with id: " + ids.get(i)));
+                continue;
             }
+            results.add(BulkTaskResult.builder().index(i).id(task.getId()).status(HttpStatus.NO_CONTENT.value()).build());
+            if (deleted.add(task.getId())) {
+                eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.DELETED, user.getId(), TaskMapper.toDTO(task)));
+            }
+        }
+        return toBulkResponse(results);
+    }
+
+    public StreamingResponseBody exportTasks(ExportFormat format, String search, TaskStatus status, TaskPriority priority) {
+        User user = getCurrentUser();
+        // Written on an async thread, pinned to the user's shard
+        return outputStream -> ShardContext.run(user.getShard(),
+                () -> taskExportService.write(format, user, search, status, priority, outputStream));
+    }
+
+    private boolean useSearchIndex(String search) {
+        return search != null && !search.isBlank() && taskSearchIndex.isReady();
+    }
+
+    // Loads ranked ids from the search index, keeping the index order
+    private List<TaskDTO> findRanked(User user, List<Long> ids, Set<TaskField> fields) {
+        Function<List<Long>, List<TaskDTO>> loader = fields != null
+                ? batch -> taskRepository.findProjectedByIds(user, fields, batch)
+                : batch -> taskRepository.findByUserAndIdIn(user, batch).stream().map(TaskMapper::toDTO).collect(Collectors.toList());
 
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+        Map<Long, TaskDTO> tasksById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size()));
+            loader.apply(batch).forEach(task -> tasksById.put(task.getId(), task));
+        }
+        return ids.stream()
+                .map(tasksById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private TaskPage findProjectedPage(User user, Set<TaskField> fields, String search, TaskStatus status,
+                                       TaskPriority priority, String cursor, int pageSize) {
+        TaskCursor after = cursor == null || cursor.isEmpty() ? null : TaskCursor.decode(cursor);
+        List<TaskDTO> tasks = taskRepository.findProjected(user, fields, search, status, priority,
+                after != null ? after.createdAt() : null, after != null ? after.id() : null, pageSize + 1);
+
+        boolean hasMore = tasks.size() > pageSize;
+        List<TaskDTO> pageTasks = hasMore ? tasks.subList(0, pageSize) : tasks;
+        TaskDTO last = hasMore ? pageTasks.get(pageSize - 1) : null;
+        return TaskPage.builder()
+                .items(pageTasks)
+                .nextCursor(last != null ? new TaskCursor(last.getCreatedAt(), last.getId()).encode() : null)
+                .build();
+    }
+
+    // By primary key so repeated reads are served from the second-level cache; the owner is
+    // checked against the cached foreign key without loading the user
+    private Task findOwnedTask(Long id, User user) {
+        return taskRepository.findById(id)
+                .filter(task -> task.getUser() != null && user.getId().equals(task.getUser().getId()))
+                .orElseThrow(() -> new EntityNotFoundException("Task not found with id: " + id));
+    }
+
+    private Map<Long, Task> findByIds(User user, List<Long> ids) {
+        Map<Long, Task> tasksById = new HashMap<>();
+        if (!ids.isEmpty()) {
+            taskRepository.findByUserAndIdIn(user, new LinkedHashSet<>(ids))
+                    .forEach(task -> tasksById.put(task.getId(), task));
+        }
+        return tasksById;
+    }
+
+    private void checkBulkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one item is required");
+        }
+        if (items.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_SIZE + " items are allowed per request");
+        }
+        if (items.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Items must not be null");
+        }
+    }
+
+    private void checkPatch(JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Patch must be a JSON object");
+        }
+        patch.fields().forEachRemaining(field -> {
+            if (!PATCHABLE_FIELDS.contains(field.getKey())) {
+                throw new IllegalArgumentException("Field cannot be patched: " + field.getKey());
+            }
+            if (field.getValue().isNull() && !NULLABLE_FIELDS.contains(field.getKey())) {
+                throw new IllegalArgumentException("Field cannot be null: " + field.getKey());
             }
+        });
+    }
 
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+    private String validate(TaskDTO taskDTO) {
+        Set<ConstraintViolation<TaskDTO>> violations = validator.validate(taskDTO);
+        if (violations.isEmpty()) {
+            return null;
         }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
     }
 
-    private TaskDTO toDTO(Task task) {
-        return TaskDTO.builder()
-                .id(task.getId())
-                .title(task.getTitle())
-                .description(task.getDescription())
-                .status(task.getStatus())
-                .priority(task.getPriority())
-                .createdAt(task.getCreatedAt())
-                .updatedAt(task.getUpdatedAt())
-                .dueDate(task.getDueDate())
+    private BulkTaskResult success(int index, HttpStatus status, TaskDTO task) {
+        return BulkTaskResult.builder().index(index).id(task.getId()).status(status.value()).task(task).build();
+    }
+
+    private BulkTaskResult failure(int index, Long id, HttpStatus status, String error) {
+        return BulkTaskResult.builder().index(index).id(id).status(status.value()).error(error).build();
+    }
+
+    private BulkTaskResponse toBulkResponse(List<BulkTaskResult> results) {
+        int succeeded = (int) results.stream().filter(result -> result.getError() == null).count();
+        return BulkTaskResponse.builder()
+                .succeeded(succeeded)
+                .failed(results.size() - succeeded)
+                .results(results)
                 .build();
     }
 
-    private Task toEntity(TaskDTO dto) {
-        return Task.builder()
-                .title(dto.getTitle())
-                .description(dto.getDescription())
-                .status(dto.getStatus() != null ? dto.getStatus() : TaskStatus.TODO)
-                .priority(dto.getPriority() != null ? dto.getPriority() : TaskPriority.MEDIUM)
-                .dueDate(dto.getDueDate())
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    // Queries fetch one extra row so we know whether another page exists without a count query
+    private TaskPage toPage(List<Task> tasks, int pageSize) {
+        boolean hasMore = tasks.size() > pageSize;
+        List<Task> pageTasks = hasMore ? tasks.subList(0, pageSize) : tasks;
+
+        return TaskPage.builder()
+                .items(pageTasks.stream().map(TaskMapper::toDTO).collect(Collectors.toList()))
+                .nextCursor(hasMore ? TaskCursor.after(pageTasks.get(pageSize - 1)).encode() : null)
                 .build();
     }
+
+    private List<Task> findOpenDueAfter(User user, DueCursor after, LocalDateTime until, PageRequest pageRequest) {
+        return taskRepository.findOpenDueAfter(user.getId(), after.dueDate(), after.id(), until, pageRequest);
+    }
+
+    private TaskPage toDuePage(List<Task> tasks, int pageSize) {
+        boolean hasMore = tasks.size() > pageSize;
+        List<Task> pageTasks = hasMore ? tasks.subList(0, pageSize) : tasks;
+
+        return TaskPage.builder()
+                .items(pageTasks.stream().map(TaskMapper::toDTO).collect(Collectors.toList()))
+                .nextCursor(hasMore ? DueCursor.after(pageTasks.get(pageSize - 1)).encode() : null)
+                .build();
+    }
+
+    private TaskTombstone tombstone(Long taskId, User user) {
+        return TaskTombstone.builder()
+                .taskId(taskId)
+                .userId(user.getId())
+                .deletedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static boolean isBefore(LocalDateTime changedAt, Long id, LocalDateTime otherChangedAt, Long otherId) {
+        int order = changedAt.compareTo(otherChangedAt);
+        return order < 0 || (order == 0 && id < otherId);
+    }
+
+    private void applyUpdate(Task task, TaskDTO taskDTO) {
+        task.setTitle(taskDTO.getTitle());
+        task.setDescription(taskDTO.getDescription());
+        task.setStatus(taskDTO.getStatus() != null ? taskDTO.getStatus() : task.getStatus());
+        task.setPriority(taskDTO.getPriority() != null ? taskDTO.getPriority() : task.getPriority());
+        task.setDueDate(taskDTO.getDueDate());
+    }
 }
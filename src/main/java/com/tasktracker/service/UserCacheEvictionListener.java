@@ -0,0 +1,38 @@
+package com.tasktracker.service;
+
+import com.tasktracker.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops cached principals when a user row changes. The entry is evicted again after commit
+ * so a concurrent request cannot re-cache the pre-commit state.
+ */
+@Component
+public class UserCacheEvictionListener {
+
+    private final UserDetailsServiceImpl userDetailsService;
+
+    public UserCacheEvictionListener(@Lazy UserDetailsServiceImpl userDetailsService) {
+        this.userDetailsService = userDetailsService;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        String email = user.getEmail();
+        userDetailsService.evict(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    userDetailsService.evict(email);
+                }
+            });
+        }
+    }
+}
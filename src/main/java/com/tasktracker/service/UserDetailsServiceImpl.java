@@ -1,21 +1,93 @@
 package com.tasktracker.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tasktracker.datasource.ShardContext;
+import com.tasktracker.datasource.ShardDirectory;
+import com.tasktracker.entity.User;
 import com.tasktracker.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final ShardDirectory shardDirectory;
+
+    @Value("${auth.principal-cache.ttl}")
+    private Duration cacheTtl;
+
+    @Value("${auth.principal-cache.max-size}")
+    private long cacheMaxSize;
+
+    // Every authenticated request resolves its principal here; unknown emails are not cached
+    private Cache<String, User> users;
+
+    @PostConstruct
+    void init() {
+        users = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByEmail(username)
+        ShardDirectory.Placement placement = shardDirectory.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
+        User user = users.get(username, email -> load(email, placement));
+        if (user != null && user.getShardVersion() != placement.version()) {
+            // Fenced or moved since it was cached, possibly by another instance
+            users.invalidate(username);
+            user = users.get(username, email -> load(email, placement));
+        }
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with email: " + username);
+        }
+        return user;
+    }
+
+    // Not transactional: the shard has to be chosen before a transaction takes its connection
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = shardDirectory.findByEmail(userDetails.getUsername())
+                .map(placement -> load(userDetails.getUsername(), placement))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+        if (user.isMoving()) {
+            // Keeps the old hash; the password is upgraded again at the next login
+            return user;
+        }
+        user.setPassword(newPassword);
+        User saved = ShardContext.call(user.getShard(), () -> userRepository.save(user));
+        saved.setShard(user.getShard());
+        saved.setShardVersion(user.getShardVersion());
+        return saved;
+    }
+
+    public void evict(String email) {
+        users.invalidate(email);
+    }
+
+    // The directory says which shard to read the user from; the placement is kept on the
+    // principal so the user's requests route without reading the user again
+    private User load(String email, ShardDirectory.Placement placement) {
+        return ShardContext.call(placement.shard(), () -> userRepository.findByEmail(email))
+                .map(user -> {
+                    user.setShard(placement.shard());
+                    user.setShardVersion(placement.version());
+                    user.setMoving(placement.moving());
+                    return user;
+                })
+                .orElse(null);
     }
 }
@@ -0,0 +1,7 @@
+package com.tasktracker.stats;
+
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+
+public record TaskCount(TaskStatus status, TaskPriority priority, long count) {
+}
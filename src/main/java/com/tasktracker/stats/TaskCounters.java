@@ -0,0 +1,236 @@
+package com.tasktracker.stats;
+
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.dto.TaskStatsDTO;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * One user's task counts by status and priority, plus overdue and due-soon counts that move as
+ * time passes. Open tasks that are not overdue yet are kept per one-minute bucket of their due
+ * date; each read first sweeps the buckets that came within the due-soon window into dueSoon and
+ * those that passed into overdue, where they are no longer kept. A read costs only the buckets
+ * passed since the last one, and overdue tasks take no memory.
+ * <p>
+ * The counters are at the users.task_data_version their last load read with the counts. A change
+ * committed at or before that version is already counted and is ignored; changes that arrive
+ * while a load runs are recorded and those newer than the load are replayed onto it, so neither
+ * a change racing the first load nor one racing a reconciling reload is lost or counted twice.
+ */
+class TaskCounters {
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+    private static final long NOT_LOADED = -1;
+
+    private final Duration dueSoonWindow;
+    private final long[][] counts = new long[STATUSES.length][PRIORITIES.length];
+    private long overdue;
+    private long dueSoon;
+    // Bucket -> open tasks due in it, for buckets after overdueUntil
+    private final NavigableMap<LocalDateTime, Long> upcoming = new TreeMap<>();
+    // Buckets up to these have been counted as overdue and as due soon
+    private LocalDateTime overdueUntil;
+    private LocalDateTime dueSoonUntil;
+    // task_data_version of the last load, NOT_LOADED before the first one finishes
+    private long version = NOT_LOADED;
+    private int loading;
+    // Changes that arrived while a load was running
+    private final List<Change> arrived = new ArrayList<>();
+
+    TaskCounters(Duration dueSoonWindow) {
+        this.dueSoonWindow = dueSoonWindow;
+    }
+
+    synchronized boolean isLoaded() {
+        return version != NOT_LOADED;
+    }
+
+    /**
+     * Starts recording the changes that arrive, to replay those the load turns out not to have
+     * seen. Call before the load reads anything, and {@link #endLoad} once it is over.
+     */
+    synchronized void startLoad() {
+        loading++;
+    }
+
+    /**
+     * Replaces the counts with those a load read at the given task_data_version, plus the changes
+     * that arrived since and are newer. Returns whether that changed already loaded counters; a
+     * load older than the counters is dropped.
+     */
+    synchronized boolean finishLoad(List<TaskCount> counts, List<LocalDateTime> openDueDates, long loadedVersion,
+                                    LocalDateTime now) {
+        if (loadedVersion < version) {
+            return false;
+        }
+        TaskCounters loaded = new TaskCounters(dueSoonWindow);
+        loaded.fill(counts, openDueDates, now);
+        for (Change change : arrived) {
+            if (change.version() > loadedVersion) {
+                loaded.apply(change);
+            }
+        }
+        boolean changed = isLoaded() && !matches(loaded, now);
+        copyFrom(loaded);
+        version = loadedVersion;
+        return changed;
+    }
+
+    synchronized void endLoad() {
+        if (--loading == 0) {
+            arrived.clear();
+        }
+    }
+
+    /**
+     * Counts a task change committed at the given task_data_version; either task may be null.
+     * A change without a version, made outside a transaction, is counted as it comes and left to
+     * reconciliation if it races a load.
+     */
+    synchronized void change(TaskDTO removed, TaskDTO added, Long changeVersion) {
+        if (changeVersion != null && changeVersion <= version) {
+            return;
+        }
+        Change change = new Change(removed, added, changeVersion != null ? changeVersion : NOT_LOADED);
+        if (loading > 0 && changeVersion != null) {
+            arrived.add(change);
+        }
+        if (isLoaded()) {
+            apply(change);
+        }
+    }
+
+    synchronized TaskStatsDTO snapshot(LocalDateTime now) {
+        sweep(now);
+        Map<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+        Map<TaskPriority, Long> byPriority = new EnumMap<>(TaskPriority.class);
+        Map<TaskStatus, Map<TaskPriority, Long>> byStatusAndPriority = new EnumMap<>(TaskStatus.class);
+        long total = 0;
+        for (TaskStatus status : STATUSES) {
+            Map<TaskPriority, Long> row = new EnumMap<>(TaskPriority.class);
+            for (TaskPriority priority : PRIORITIES) {
+                long count = counts[status.ordinal()][priority.ordinal()];
+                row.put(priority, count);
+                byStatus.merge(status, count, Long::sum);
+                byPriority.merge(priority, count, Long::sum);
+                total += count;
+            }
+            byStatusAndPriority.put(status, row);
+        }
+
+        return TaskStatsDTO.builder()
+                .total(total)
+                .byStatus(byStatus)
+                .byPriority(byPriority)
+                .byStatusAndPriority(byStatusAndPriority)
+                .overdue(overdue)
+                .dueSoon(dueSoon)
+                .dueSoonUntil(dueSoonUntil)
+                .build();
+    }
+
+    // Both are swept to the same moment first, so they hold the same buckets
+    synchronized boolean matches(TaskCounters other, LocalDateTime now) {
+        synchronized (other) {
+            sweep(now);
+            other.sweep(now);
+            return Arrays.deepEquals(counts, other.counts) && overdue == other.overdue
+                    && dueSoon == other.dueSoon && upcoming.equals(other.upcoming);
+        }
+    }
+
+    private void fill(List<TaskCount> taskCounts, List<LocalDateTime> openDueDates, LocalDateTime now) {
+        overdueUntil = now;
+        dueSoonUntil = now.plus(dueSoonWindow);
+        for (TaskCount count : taskCounts) {
+            counts[count.status().ordinal()][count.priority().ordinal()] += count.count();
+        }
+        for (LocalDateTime dueDate : openDueDates) {
+            countDue(dueDate, 1);
+        }
+    }
+
+    private void copyFrom(TaskCounters other) {
+        for (int status = 0; status < counts.length; status++) {
+            System.arraycopy(other.counts[status], 0, counts[status], 0, counts[status].length);
+        }
+        overdue = other.overdue;
+        dueSoon = other.dueSoon;
+        upcoming.clear();
+        upcoming.putAll(other.upcoming);
+        overdueUntil = other.overdueUntil;
+        dueSoonUntil = other.dueSoonUntil;
+    }
+
+    private void apply(Change change) {
+        if (change.removed() != null) {
+            count(change.removed(), -1);
+        }
+        if (change.added() != null) {
+            count(change.added(), 1);
+        }
+    }
+
+    private void count(TaskDTO task, int delta) {
+        counts[task.getStatus().ordinal()][task.getPriority().ordinal()] += delta;
+        if (task.getDueDate() != null && task.getStatus() != TaskStatus.DONE) {
+            countDue(task.getDueDate(), delta);
+        }
+    }
+
+    private void countDue(LocalDateTime dueDate, int delta) {
+        LocalDateTime bucket = bucket(dueDate);
+        if (!bucket.isAfter(overdueUntil)) {
+            overdue += delta;
+            return;
+        }
+        long count = upcoming.getOrDefault(bucket, 0L) + delta;
+        if (count == 0) {
+            upcoming.remove(bucket);
+        } else {
+            upcoming.put(bucket, count);
+        }
+        if (!bucket.isAfter(dueSoonUntil)) {
+            dueSoon += delta;
+        }
+    }
+
+    private void sweep(LocalDateTime now) {
+        if (!now.isAfter(overdueUntil)) {
+            return;
+        }
+        LocalDateTime soonUntil = now.plus(dueSoonWindow);
+        for (long count : upcoming.subMap(dueSoonUntil, false, soonUntil, true).values()) {
+            dueSoon += count;
+        }
+        NavigableMap<LocalDateTime, Long> passed = upcoming.headMap(now, true);
+        for (long count : passed.values()) {
+            dueSoon -= count;
+            overdue += count;
+        }
+        passed.clear();
+        overdueUntil = now;
+        dueSoonUntil = soonUntil;
+    }
+
+    // Rounded up, so a task is never counted as overdue before its due date
+    private static LocalDateTime bucket(LocalDateTime dueDate) {
+        LocalDateTime minute = dueDate.truncatedTo(ChronoUnit.MINUTES);
+        return minute.equals(dueDate) ? minute : minute.plusMinutes(1);
+    }
+
+    private record Change(TaskDTO removed, TaskDTO added, long version) {
+    }
+}
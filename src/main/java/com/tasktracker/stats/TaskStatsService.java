@@ -0,0 +1,129 @@
+package com.tasktracker.stats;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tasktracker.datasource.ShardContext;
+import com.tasktracker.datasource.ShardDirectory;
+import com.tasktracker.dto.TaskStatsDTO;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.repository.TaskRepository;
+import com.tasktracker.service.TaskDataVersions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Serves per-user task statistics from in-memory counters. A user's counters are loaded with
+ * one GROUP BY query on first read and then kept current from committed task changes, so a
+ * dashboard read does not touch the tasks table and does not grow with the user's tasks. Each
+ * change carries the task_data_version it committed at, which the counters use to skip what a
+ * load already counted. Changes made by other instances are corrected by the periodic
+ * reconciliation.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskStatsService {
+
+    private final TaskRepository taskRepository;
+    private final ShardDirectory shardDirectory;
+    private final MeterRegistry meterRegistry;
+    private final TaskDataVersions taskDataVersions;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${stats.due-soon}")
+    private Duration dueSoon;
+
+    @Value("${stats.max-users}")
+    private long maxUsers;
+
+    private Cache<Long, TaskCounters> counters;
+    private Counter corrections;
+    // Reads the counts and their task_data_version from one snapshot; on the primary, since a
+    // lagging replica would miss changes that have already been delivered
+    private TransactionTemplate loadTemplate;
+
+    @PostConstruct
+    void init() {
+        counters = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .build();
+        corrections = Counter.builder("tasks.stats.corrections")
+                .description("Users whose counters disagreed with the database during reconciliation")
+                .register(meterRegistry);
+        loadTemplate = new TransactionTemplate(transactionManager);
+        loadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public TaskStatsDTO getStats(Long userId) {
+        // Cached before loading, so changes committed during the load reach it
+        TaskCounters userCounters = counters.get(userId, id -> new TaskCounters(dueSoon));
+        if (!userCounters.isLoaded()) {
+            load(userId, userCounters);
+        }
+        return userCounters.snapshot(LocalDateTime.now());
+    }
+
+    // Ahead of TaskDataVersions dropping the transaction's committed versions
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        // Users without counters are loaded from the database on their next read
+        TaskCounters userCounters = counters.getIfPresent(event.userId());
+        if (userCounters == null) {
+            return;
+        }
+        Long version = taskDataVersions.committedVersion(event.userId());
+        switch (event.type()) {
+            case CREATED -> userCounters.change(null, event.task(), version);
+            case UPDATED -> {
+                if (event.previous() == null) {
+                    counters.invalidate(event.userId());
+                    return;
+                }
+                userCounters.change(event.previous(), event.task(), version);
+            }
+            case DELETED -> userCounters.change(event.task(), null, version);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stats.reconcile-interval}", initialDelayString = "${stats.reconcile-interval}")
+    public void reconcile() {
+        for (Long userId : counters.asMap().keySet()) {
+            TaskCounters current = counters.getIfPresent(userId);
+            if (current == null) {
+                continue;
+            }
+            // No principal to route by here
+            if (ShardContext.call(shardDirectory.shardOf(userId), () -> load(userId, current))) {
+                corrections.increment();
+                log.warn("Task statistics for user {} drifted from the database and were reloaded", userId);
+            }
+        }
+    }
+
+    // Returns whether loaded counters were off from the database
+    private boolean load(Long userId, TaskCounters userCounters) {
+        userCounters.startLoad();
+        try {
+            return Boolean.TRUE.equals(loadTemplate.execute(status -> userCounters.finishLoad(
+                    taskRepository.countByStatusAndPriority(userId), taskRepository.findOpenDueDates(userId),
+                    taskDataVersions.current(userId), LocalDateTime.now())));
+        } finally {
+            userCounters.endLoad();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+-- The schema as ddl-auto last created it. Databases that already hold it are baselined at
+-- version 0 and run this too, so every statement leaves existing objects alone.
+
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    name       VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+-- Task ids come from a pooled sequence so inserts can be batched; TaskSequenceInitializer moves
+-- it past ids handed out by the identity column that came before it
+CREATE SEQUENCE IF NOT EXISTS task_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS tasks (
+    id          BIGINT PRIMARY KEY,
+    title       VARCHAR(255) NOT NULL,
+    description TEXT,
+    status      VARCHAR(255) NOT NULL,
+    priority    VARCHAR(255) NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6),
+    due_date    TIMESTAMP(6),
+    user_id     BIGINT,
+    CONSTRAINT fk_tasks_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+-- GET /api/tasks/changes reads a user's tasks in (updated_at, id) order
+CREATE INDEX IF NOT EXISTS idx_tasks_user_updated ON tasks (user_id, updated_at, id);
+
+-- Range reads of the due-date engine
+CREATE INDEX IF NOT EXISTS idx_tasks_due ON tasks (due_date, id);
+
+CREATE TABLE IF NOT EXISTS task_tombstones (
+    task_id    BIGINT PRIMARY KEY,
+    user_id    BIGINT NOT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_task_tombstones_user_deleted ON task_tombstones (user_id, deleted_at, task_id);
+
+-- Tombstone compaction
+CREATE INDEX IF NOT EXISTS idx_task_tombstones_deleted ON task_tombstones (deleted_at);
+
+CREATE TABLE IF NOT EXISTS due_date_checkpoints (
+    name            VARCHAR(255) PRIMARY KEY,
+    processed_until TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,11 @@
+-- Composite indexes for the task list queries, which all filter by user first.
+
+-- List, search and export pages: WHERE user_id = ? ORDER BY created_at DESC, id DESC. Both sort
+-- columns are descending so the keyset pages read the index in order with no sort step
+CREATE INDEX IF NOT EXISTS idx_tasks_user_created ON tasks (user_id, created_at DESC, id DESC);
+
+-- Status filters, and the per-user GROUP BY behind the statistics
+CREATE INDEX IF NOT EXISTS idx_tasks_user_status ON tasks (user_id, status);
+
+-- A user's open due dates for the statistics and the overdue and due-soon fallbacks
+CREATE INDEX IF NOT EXISTS idx_tasks_user_due ON tasks (user_id, due_date);
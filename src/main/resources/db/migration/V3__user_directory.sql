@@ -0,0 +1,15 @@
+-- Directory of users for sharding: the shard that holds each user, found by email at login.
+-- Every shard gets these, but only shard 0's copy is used. User ids come from user_seq so they
+-- stay unique across shards; ShardDirectory moves it past ids from the identity column
+CREATE SEQUENCE IF NOT EXISTS user_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS user_shards (
+    user_id BIGINT PRIMARY KEY,
+    email   VARCHAR(255) NOT NULL,
+    shard   INTEGER NOT NULL,
+    CONSTRAINT uk_user_shards_email UNIQUE (email)
+);
+
+-- Users registered before sharding are all on shard 0
+INSERT INTO user_shards (user_id, email, shard)
+SELECT id, email, 0 FROM users WHERE id NOT IN (SELECT user_id FROM user_shards);
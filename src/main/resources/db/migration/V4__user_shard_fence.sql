@@ -0,0 +1,4 @@
+-- Fences a user while ShardRebalancer copies them: moving refuses their writes, and version
+-- changes with every fence and move so instances holding a cached principal notice and reload it
+ALTER TABLE user_shards ADD COLUMN moving BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE user_shards ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Bumped in every transaction that writes the user's tasks; the list ETags are built from it, so
+-- every instance issues and checks the same tags
+ALTER TABLE users ADD COLUMN task_data_version BIGINT NOT NULL DEFAULT 0;
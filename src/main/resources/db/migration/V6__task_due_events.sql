@@ -0,0 +1,11 @@
+-- Which events the due-date engine has fired for the task's current due date: 0 none, 1 the
+-- reminder, 2 both. Task writes set it back to 0 when the due date moves or the task is reopened
+ALTER TABLE tasks ADD COLUMN due_events SMALLINT NOT NULL DEFAULT 0;
+
+-- Tasks already due were announced by the checkpoint-based engine, or were never going to be
+UPDATE tasks SET due_events = 2 WHERE status = 'DONE' OR due_date IS NULL OR due_date < CURRENT_TIMESTAMP;
+
+-- Range reads of the due-date engine: fired and done tasks leave the ranges it reads
+CREATE INDEX IF NOT EXISTS idx_tasks_due_events ON tasks (due_events, due_date, id);
+
+DROP INDEX IF EXISTS idx_tasks_due;
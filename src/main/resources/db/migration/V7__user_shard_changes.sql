@@ -0,0 +1,4 @@
+-- When the entry was last fenced or moved. Instances poll for entries changed since their last
+-- look and drop them from their directory caches, which can then be kept long
+ALTER TABLE user_shards ADD COLUMN changed_at TIMESTAMP(6) NOT NULL DEFAULT LOCALTIMESTAMP;
+CREATE INDEX idx_user_shards_changed_at ON user_shards (changed_at);
@@ -0,0 +1,65 @@
+package com.tasktracker.benchmark;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the heap allocated by the request thread for every request tagged by the load
+ * generator, grouped by operation. Work handed to another thread, such as the body of a streamed
+ * export, is not included.
+ */
+class AllocationRecorder extends OncePerRequestFilter {
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, Allocation> allocations = new ConcurrentHashMap<>();
+
+    record Summary(long requests, long meanBytes, long maxBytes) {
+    }
+
+    Summary summary(String operation) {
+        Allocation allocation = allocations.get(operation);
+        if (allocation == null) {
+            return new Summary(0, 0, 0);
+        }
+        long requests = allocation.requests.sum();
+        return new Summary(requests, requests == 0 ? 0 : allocation.bytes.sum() / requests, allocation.max.get());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String operation = request.getHeader(LoadGenerator.OPERATION_HEADER);
+        if (operation == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            Allocation allocation = allocations.computeIfAbsent(operation, key -> new Allocation());
+            allocation.requests.increment();
+            allocation.bytes.add(allocated);
+            allocation.max.accumulate(allocated);
+        }
+    }
+
+    private static final class Allocation {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    }
+}
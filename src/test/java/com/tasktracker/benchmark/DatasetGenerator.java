@@ -0,0 +1,151 @@
+package com.tasktracker.benchmark;
+
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds users and tasks through JDBC batches, fast enough for a few hundred thousand rows.
+ * The shape is skewed the way a real user base is: tasks per user follow a Zipf curve, most
+ * tasks are done, and descriptions are mostly short with a long tail. The same seed always
+ * produces the same dataset.
+ */
+class DatasetGenerator {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int TASK_ID_ALLOCATION = 50;
+    private static final String[] VOCABULARY = {"report", "invoice", "meeting", "release", "review", "budget",
+            "plumber", "design", "customer", "deadline", "migration", "dentist", "groceries", "contract", "backup",
+            "interview", "roadmap", "expenses", "onboarding", "quarterly", "draft", "follow", "call", "ship"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    DatasetGenerator(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.random = new Random(seed);
+    }
+
+    record SeededUser(long id, String email, List<Long> taskIds) {
+    }
+
+    /**
+     * Inserts the users, all sharing one password hash, and spreads the tasks over them with the
+     * given Zipf exponent (0 spreads them evenly). Users come back heaviest first.
+     */
+    List<SeededUser> generate(int userCount, int taskCount, double skew, String passwordHash) {
+        List<SeededUser> users = insertUsers(userCount, passwordHash);
+        int[] tasksPerUser = zipf(userCount, taskCount, skew);
+
+        long nextId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tasks", Long.class) + 1;
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int u = 0; u < users.size(); u++) {
+            SeededUser user = users.get(u);
+            for (int t = 0; t < tasksPerUser[u]; t++) {
+                long id = nextId++;
+                user.taskIds().add(id);
+                batch.add(task(id, user.id()));
+                if (batch.size() == BATCH_SIZE) {
+                    insertTasks(batch);
+                }
+            }
+        }
+        insertTasks(batch);
+
+        // Same arithmetic as the pooled optimizer: the next block must start above the seeded ids
+        jdbcTemplate.execute("ALTER SEQUENCE task_seq RESTART WITH " + (nextId - 1 + TASK_ID_ALLOCATION));
+        return users;
+    }
+
+    private List<SeededUser> insertUsers(int userCount, String passwordHash) {
+        String prefix = "scale-" + Long.toHexString(random.nextLong()) + "-";
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> directory = new ArrayList<>();
+        List<SeededUser> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            // Ids come from the directory's sequence, like registrations; everyone is seeded on shard 0
+            Long id = jdbcTemplate.queryForObject("SELECT nextval('user_seq')", Long.class);
+            String email = prefix + i + "@example.com";
+            rows.add(new Object[]{id, email, passwordHash, "Scale User " + i, Timestamp.valueOf(now.minusDays(400))});
+            directory.add(new Object[]{id, email, 0});
+            users.add(new SeededUser(id, email, new ArrayList<>()));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, password, name, created_at) VALUES (?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.batchUpdate("INSERT INTO user_shards (user_id, email, shard) VALUES (?, ?, ?)", directory);
+        return users;
+    }
+
+    private int[] zipf(int userCount, int taskCount, double skew) {
+        double[] weights = new double[userCount];
+        double total = 0;
+        for (int rank = 0; rank < userCount; rank++) {
+            weights[rank] = 1 / Math.pow(rank + 1, skew);
+            total += weights[rank];
+        }
+        int[] counts = new int[userCount];
+        int assigned = 0;
+        for (int rank = 0; rank < userCount; rank++) {
+            // Everyone gets at least one task so the workload always has something to read
+            counts[rank] = Math.max(1, (int) (taskCount * weights[rank] / total));
+            assigned += counts[rank];
+        }
+        // Rounding leftovers go to the head of the curve
+        for (int rank = 0; assigned < taskCount; rank = (rank + 1) % userCount, assigned++) {
+            counts[rank]++;
+        }
+        return counts;
+    }
+
+    private Object[] task(long id, long userId) {
+        LocalDateTime createdAt = now.minusMinutes(random.nextInt(365 * 24 * 60));
+        int roll = random.nextInt(100);
+        TaskStatus status = roll < 55 ? TaskStatus.DONE : roll < 85 ? TaskStatus.TODO : TaskStatus.IN_PROGRESS;
+        roll = random.nextInt(100);
+        TaskPriority priority = roll < 50 ? TaskPriority.MEDIUM : roll < 80 ? TaskPriority.LOW : TaskPriority.HIGH;
+        // About a third have a due date, spread from a month back to two months ahead
+        LocalDateTime dueDate = random.nextInt(3) == 0 ? now.plusHours(random.nextInt(90 * 24) - 30 * 24) : null;
+        LocalDateTime updatedAt = createdAt.plusMinutes(random.nextInt(7 * 24 * 60));
+
+        return new Object[]{id, text(3 + random.nextInt(6)), description(), status.name(), priority.name(),
+                Timestamp.valueOf(createdAt), Timestamp.valueOf(updatedAt.isAfter(now) ? now : updatedAt),
+                dueDate != null ? Timestamp.valueOf(dueDate) : null, userId};
+    }
+
+    // Log-normal word count: median around 12 words, a few run to thousands
+    private String description() {
+        if (random.nextInt(5) == 0) {
+            return null;
+        }
+        int words = (int) Math.min(2000, Math.exp(2.5 + 1.2 * random.nextGaussian()));
+        return text(Math.max(1, words));
+    }
+
+    private String text(int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            // Squaring the roll makes the first words of the vocabulary the common ones
+            double roll = random.nextDouble();
+            text.append(VOCABULARY[(int) (roll * roll * VOCABULARY.length)]);
+        }
+        return text.toString();
+    }
+
+    private void insertTasks(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tasks (id, title, description, status, priority, created_at, "
+                + "updated_at, due_date, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+}
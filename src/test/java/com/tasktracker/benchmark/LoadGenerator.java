@@ -0,0 +1,392 @@
+package com.tasktracker.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load generator for comparing the platform-thread and virtual-thread modes.
+ * Each worker repeatedly runs a weighted mix of list, search, get, stats, create, update and
+ * login requests against a running instance and records the latency of every request made
+ * after the warmup. Every request picks its user at random, in proportion to the user's weight.
+ * Measured requests carry an {@value #OPERATION_HEADER} header so the server side can attribute
+ * its own measurements (see {@link ScaleIT}).
+ * <p>
+ * Run it once per mode against the same database, then compare:
+ * <pre>
+ * java -jar target/task-tracker-1.0.0.jar
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.tasktracker.benchmark.LoadGenerator -Dload.label=platform
+ *
+ * ./mvnw -Pjava21 package -DskipTests
+ * java -jar target/task-tracker-1.0.0.jar --spring.profiles.active=virtual
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.tasktracker.benchmark.LoadGenerator -Dload.label=virtual \
+ *     -Dload.baseline=target/loadtest/platform.json
+ * </pre>
+ * Settings (system properties): load.baseUrl, load.concurrency, load.duration, load.warmup,
+ * load.users, load.tasksPerUser, load.label, load.baseline, load.mix (e.g. LIST=50,GET=50).
+ * Results are written to target/loadtest/&lt;label&gt;.json.
+ */
+public class LoadGenerator {
+
+    static final String OPERATION_HEADER = "X-Load-Operation";
+
+    // Weights are the default mix; operations weighted 0 only run when a mix asks for them
+    enum Operation {
+        LIST(35), FILTER(0), SEARCH(15), GET(15), STATS(5), CREATE(10), UPDATE(15), EXPORT(0), LOGIN(5), REGISTER(0);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    static final String PASSWORD = "load-test-password";
+    static final String[] WORDS = {"report", "invoice", "meeting", "release", "review", "budget", "plumber", "design"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final String label;
+    private final Map<Operation, Integer> mix;
+
+    LoadGenerator(String baseUrl, int concurrency, Duration warmup, Duration duration, String label,
+                  Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.label = label;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator(
+                System.getProperty("load.baseUrl", "http://localhost:8080"),
+                Integer.getInteger("load.concurrency", 1000),
+                Duration.parse(System.getProperty("load.warmup", "PT15S")),
+                Duration.parse(System.getProperty("load.duration", "PT60S")),
+                System.getProperty("load.label", "run"),
+                parseMix(System.getProperty("load.mix")));
+        ObjectNode result = generator.run(generator.register(
+                Integer.getInteger("load.users", 50), Integer.getInteger("load.tasksPerUser", 200)));
+
+        generator.write(result, Path.of("target", "loadtest", generator.label + ".json"));
+        String baseline = System.getProperty("load.baseline");
+        if (baseline != null) {
+            generator.compare(generator.objectMapper.readTree(Path.of(baseline).toFile()), result);
+        }
+    }
+
+    /**
+     * Parses a mix such as "LIST=50,GET=50"; a blank mix means the default weights.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        if (mix == null || mix.isBlank()) {
+            for (Operation operation : Operation.values()) {
+                weights.put(operation, operation.weight);
+            }
+            return weights;
+        }
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(Operation.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    ObjectNode run(List<LoadUser> users) throws InterruptedException {
+        System.out.printf("Running %s: %d workers for %s after %s warmup%n", label, concurrency, duration, warmup);
+
+        double[] cumulativeWeights = new double[users.size()];
+        double totalWeight = 0;
+        for (int i = 0; i < users.size(); i++) {
+            totalWeight += users.get(i).weight;
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        List<Recorder> recorders = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            workers.execute(() -> work(users, cumulativeWeights, recorder, measureFrom, measureUntil));
+        }
+        workers.shutdown();
+        workers.awaitTermination(warmup.plus(duration).toSeconds() + 120, TimeUnit.SECONDS);
+        return summarize(recorders);
+    }
+
+    void write(ObjectNode result, Path output) throws IOException {
+        Files.createDirectories(output.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), result);
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result));
+    }
+
+    private List<LoadUser> register(int userCount, int tasksPerUser) throws Exception {
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        List<LoadUser> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            String email = "load-" + runId + "-" + i + "@example.com";
+            JsonNode auth = objectMapper.readTree(send(post("/api/auth/register", null,
+                    "{\"name\":\"Load " + i + "\",\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}")).body());
+            LoadUser user = new LoadUser(email, auth.get("token").asText(), new ArrayList<>(), 1);
+
+            for (int seeded = 0; seeded < tasksPerUser; seeded += 200) {
+                ArrayNode batch = objectMapper.createArrayNode();
+                for (int j = seeded; j < Math.min(seeded + 200, tasksPerUser); j++) {
+                    batch.add(taskJson(j));
+                }
+                JsonNode response = objectMapper.readTree(send(post("/api/tasks/bulk", user.token, batch.toString())).body());
+                for (JsonNode item : response.get("results")) {
+                    user.taskIds.add(item.get("id").asLong());
+                }
+            }
+            users.add(user);
+        }
+        System.out.printf("Seeded %d users with %d tasks each%n", userCount, tasksPerUser);
+        return users;
+    }
+
+    private void work(List<LoadUser> users, double[] cumulativeWeights, Recorder recorder,
+                      long measureFrom, long measureUntil) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        while (System.nanoTime() < measureUntil) {
+            Operation operation = pick(random.nextInt(totalWeight));
+            int userIndex = Arrays.binarySearch(cumulativeWeights, random.nextDouble(cumulativeWeights[cumulativeWeights.length - 1]));
+            LoadUser user = users.get(userIndex >= 0 ? userIndex : -userIndex - 1);
+
+            HttpRequest request = request(operation, user, random);
+            long started = System.nanoTime();
+            boolean measured = started >= measureFrom;
+            if (measured) {
+                request = HttpRequest.newBuilder(request, (name, value) -> true)
+                        .header(OPERATION_HEADER, operation.name())
+                        .build();
+            }
+            int status;
+            try {
+                // Bodies are read and dropped; the client shares the JVM with the server in scale runs
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                status = -1;
+            }
+            if (measured) {
+                recorder.record(operation, System.nanoTime() - started, status);
+            }
+        }
+    }
+
+    private HttpRequest request(Operation operation, LoadUser user, ThreadLocalRandom random) {
+        Long taskId = user.taskIds.get(random.nextInt(user.taskIds.size()));
+        return switch (operation) {
+            case LIST -> get("/api/tasks?limit=50", user.token);
+            case FILTER -> get("/api/tasks/search?limit=50&status=" + TaskStatus.values()[random.nextInt(3)]
+                    + "&priority=" + TaskPriority.values()[random.nextInt(3)], user.token);
+            case SEARCH -> get("/api/tasks/search?limit=20&search=" + WORDS[random.nextInt(WORDS.length)], user.token);
+            case GET -> get("/api/tasks/" + taskId, user.token);
+            case STATS -> get("/api/tasks/stats", user.token);
+            case CREATE -> post("/api/tasks", user.token, taskJson(random.nextInt(1_000_000)).toString());
+            case UPDATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/tasks/" + taskId))
+                    .header("Authorization", "Bearer " + user.token)
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(taskJson(random.nextInt(1_000_000)).toString()))
+                    .build();
+            case EXPORT -> get("/api/tasks/export?format=csv", user.token);
+            case LOGIN -> post("/api/auth/login", null,
+                    "{\"email\":\"" + user.email + "\",\"password\":\"" + PASSWORD + "\"}");
+            case REGISTER -> post("/api/auth/register", null, "{\"name\":\"Load\",\"email\":\"load-"
+                    + UUID.randomUUID() + "@example.com\",\"password\":\"" + PASSWORD + "\"}");
+        };
+    }
+
+    private Operation pick(int roll) {
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return Operation.LIST;
+    }
+
+    private ObjectNode taskJson(int n) {
+        ObjectNode task = objectMapper.createObjectNode();
+        task.put("title", WORDS[n % WORDS.length] + " task " + n);
+        task.put("description", "Generated for load testing, mentions " + WORDS[(n / 8) % WORDS.length]);
+        task.put("priority", n % 3 == 0 ? "HIGH" : n % 3 == 1 ? "MEDIUM" : "LOW");
+        return task;
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private ObjectNode summarize(List<Recorder> recorders) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("label", label);
+        result.put("concurrency", concurrency);
+        result.put("durationSeconds", duration.toSeconds());
+
+        Recorder total = new Recorder();
+        ObjectNode operations = result.putObject("operations");
+        for (Operation operation : mix.keySet()) {
+            if (mix.get(operation) == 0) {
+                continue;
+            }
+            Recorder merged = new Recorder();
+            recorders.forEach(recorder -> merged.merge(operation, recorder, operation));
+            operations.set(operation.name(), merged.toJson(operation, duration));
+            // The total is kept under a single key so its percentiles cover every request
+            total.merge(Operation.LIST, merged, operation);
+        }
+        result.set("total", total.toJson(Operation.LIST, duration));
+        return result;
+    }
+
+    private void compare(JsonNode before, JsonNode after) {
+        System.out.printf("%n%-8s %14s %14s %12s %12s%n", "", "rps " + before.get("label").asText(),
+                "rps " + after.get("label").asText(), "p99 before", "p99 after");
+        List<String> rows = new ArrayList<>();
+        after.get("operations").fieldNames().forEachRemaining(rows::add);
+        rows.add("total");
+        for (String row : rows) {
+            JsonNode b = row.equals("total") ? before.get("total") : before.get("operations").get(row);
+            JsonNode a = row.equals("total") ? after.get("total") : after.get("operations").get(row);
+            System.out.printf("%-8s %14.1f %14.1f %10.1fms %10.1fms%n", row,
+                    b.get("throughput").asDouble(), a.get("throughput").asDouble(),
+                    b.get("p99Ms").asDouble(), a.get("p99Ms").asDouble());
+        }
+    }
+
+    static final class LoadUser {
+        private final String email;
+        private final String token;
+        private final List<Long> taskIds;
+        private final double weight;
+
+        LoadUser(String email, String token, List<Long> taskIds, double weight) {
+            this.email = email;
+            this.token = token;
+            this.taskIds = taskIds;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Latencies of one worker, so recording needs no synchronization.
+     */
+    private static final class Recorder {
+        private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> errors = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> rejected = new EnumMap<>(Operation.class);
+
+        void record(Operation operation, long nanos, int status) {
+            if (status == 429) {
+                rejected.merge(operation, 1, Integer::sum);
+                return;
+            }
+            if (status < 200 || status >= 400) {
+                errors.merge(operation, 1, Integer::sum);
+                return;
+            }
+            int count = counts.getOrDefault(operation, 0);
+            long[] values = latencies.computeIfAbsent(operation, key -> new long[1024]);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                latencies.put(operation, values);
+            }
+            values[count] = nanos;
+            counts.put(operation, count + 1);
+        }
+
+        void merge(Operation target, Recorder other, Operation source) {
+            int otherCount = other.counts.getOrDefault(source, 0);
+            int count = counts.getOrDefault(target, 0);
+            long[] values = Arrays.copyOf(latencies.getOrDefault(target, new long[0]), count + otherCount);
+            System.arraycopy(other.latencies.getOrDefault(source, new long[0]), 0, values, count, otherCount);
+            latencies.put(target, values);
+            counts.put(target, count + otherCount);
+            errors.merge(target, other.errors.getOrDefault(source, 0), Integer::sum);
+            rejected.merge(target, other.rejected.getOrDefault(source, 0), Integer::sum);
+        }
+
+        ObjectNode toJson(Operation operation, Duration duration) {
+            int count = counts.getOrDefault(operation, 0);
+            long[] values = Arrays.copyOf(latencies.getOrDefault(operation, new long[0]), count);
+            Arrays.sort(values);
+
+            ObjectNode json = new ObjectMapper().createObjectNode();
+            json.put("requests", count);
+            json.put("errors", errors.getOrDefault(operation, 0));
+            json.put("rejected", rejected.getOrDefault(operation, 0));
+            json.put("throughput", count / (double) duration.toSeconds());
+            json.put("p50Ms", percentile(values, 0.50));
+            json.put("p95Ms", percentile(values, 0.95));
+            json.put("p99Ms", percentile(values, 0.99));
+            json.put("maxMs", values.length == 0 ? 0 : values[values.length - 1] / 1_000_000.0);
+            return json;
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
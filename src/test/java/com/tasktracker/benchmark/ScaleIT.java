@@ -0,0 +1,192 @@
+package com.tasktracker.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tasktracker.benchmark.DatasetGenerator.SeededUser;
+import com.tasktracker.benchmark.LoadGenerator.LoadUser;
+import com.tasktracker.entity.User;
+import com.tasktracker.search.TaskSearchIndex;
+import com.tasktracker.security.JwtService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the application on an embedded H2 database, seeds a skewed dataset, replays a mixed
+ * workload over HTTP and fails when a latency, allocation or heap budget is exceeded. Nothing
+ * outside the JVM is needed:
+ * <pre>
+ * ./mvnw -Pscale verify
+ * ./mvnw -Pscale verify -Dscale.dataset.tasks=500000 -Dscale.workload.concurrency=32
+ * </pre>
+ * Dataset, workload and budgets are in application-scale.yml. The report, including the
+ * allocation per request measured on the server side, is written to target/loadtest/scale.json.
+ * Client and server share the heap, so heap figures include the load generator.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("scale")
+@DisplayName("Scale Test")
+class ScaleIT {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+
+    @Autowired
+    private AllocationRecorder allocationRecorder;
+
+    @TestConfiguration
+    static class ScaleTestConfig {
+
+        @Bean
+        AllocationRecorder allocationRecorder() {
+            return new AllocationRecorder();
+        }
+
+        // Ahead of the security filters, so token validation counts towards each request
+        @Bean
+        FilterRegistrationBean<AllocationRecorder> allocationRecorderRegistration(AllocationRecorder allocationRecorder) {
+            FilterRegistrationBean<AllocationRecorder> registration = new FilterRegistrationBean<>(allocationRecorder);
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registration;
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep every operation within its latency, allocation and heap budget")
+    void mixedWorkload_ShouldStayWithinBudgets() throws Exception {
+        // Arrange
+        List<LoadUser> users = seed();
+        LoadGenerator generator = new LoadGenerator("http://localhost:" + port,
+                setting("workload.concurrency", Integer.class),
+                setting("workload.warmup", Duration.class),
+                setting("workload.duration", Duration.class),
+                "scale",
+                LoadGenerator.parseMix(setting("workload.mix", String.class)));
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long gcCountBefore = gcTotal(GarbageCollectorMXBean::getCollectionCount);
+        long gcTimeBefore = gcTotal(GarbageCollectorMXBean::getCollectionTime);
+
+        // Act
+        ObjectNode report = generator.run(users);
+
+        // Assert
+        report.get("operations").fields().forEachRemaining(operation -> {
+            AllocationRecorder.Summary allocation = allocationRecorder.summary(operation.getKey());
+            ((ObjectNode) operation.getValue()).put("allocKbMean", allocation.meanBytes() / 1024.0);
+            ((ObjectNode) operation.getValue()).put("allocKbMax", allocation.maxBytes() / 1024.0);
+        });
+        ObjectNode heap = report.putObject("heap");
+        heap.put("peakMb", heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() / 1048576.0);
+        System.gc();
+        heap.put("retainedMb", ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1048576.0);
+        heap.put("gcCount", gcTotal(GarbageCollectorMXBean::getCollectionCount) - gcCountBefore);
+        heap.put("gcTimeMs", gcTotal(GarbageCollectorMXBean::getCollectionTime) - gcTimeBefore);
+        generator.write(report, Path.of("target", "loadtest", "scale.json"));
+
+        List<String> violations = checkBudgets(report);
+        assertTrue(violations.isEmpty(), () -> "Scale budgets exceeded:\n  " + String.join("\n  ", violations));
+    }
+
+    private List<LoadUser> seed() throws Exception {
+        int userCount = setting("dataset.users", Integer.class);
+        int taskCount = setting("dataset.tasks", Integer.class);
+        long started = System.currentTimeMillis();
+        List<SeededUser> seeded = new DatasetGenerator(jdbcTemplate, setting("dataset.seed", Long.class))
+                .generate(userCount, taskCount, setting("dataset.skew", Double.class),
+                        passwordEncoder.encode(LoadGenerator.PASSWORD));
+        // The index was built at startup, before the rows existed
+        taskSearchIndex.rebuild();
+        System.out.printf("Seeded %d users and %d tasks in %d ms%n", userCount, taskCount,
+                System.currentTimeMillis() - started);
+
+        // Heavier users are busier: each one is picked in proportion to its task count
+        List<LoadUser> users = new ArrayList<>();
+        for (SeededUser user : seeded) {
+            String token = jwtService.generateToken(User.builder().email(user.email()).build());
+            users.add(new LoadUser(user.email(), token, user.taskIds(), user.taskIds().size()));
+        }
+        return users;
+    }
+
+    private List<String> checkBudgets(JsonNode report) {
+        List<String> violations = new ArrayList<>();
+        Double errorRate = budget("error-rate");
+        report.get("operations").fields().forEachRemaining(entry -> {
+            String operation = entry.getKey();
+            JsonNode measured = entry.getValue();
+            for (Map.Entry<String, String> metric : Map.of("p50-ms", "p50Ms", "p95-ms", "p95Ms", "p99-ms", "p99Ms",
+                    "alloc-kb", "allocKbMean").entrySet()) {
+                check(violations, operation + " " + metric.getKey(), measured.get(metric.getValue()).asDouble(),
+                        budget(operation + "." + metric.getKey()));
+            }
+            int errors = measured.get("errors").asInt();
+            if (errorRate != null && errors > 0) {
+                check(violations, operation + " error-rate",
+                        errors / (double) (errors + measured.get("requests").asInt()), errorRate);
+            }
+        });
+        check(violations, "heap-peak-mb", report.get("heap").get("peakMb").asDouble(), budget("heap-peak-mb"));
+        check(violations, "heap-retained-mb", report.get("heap").get("retainedMb").asDouble(),
+                budget("heap-retained-mb"));
+        return violations;
+    }
+
+    private void check(List<String> violations, String name, double measured, Double budget) {
+        if (budget != null && measured > budget) {
+            violations.add(String.format("%s: %.2f > %.2f", name, measured, budget));
+        }
+    }
+
+    private Double budget(String name) {
+        return environment.getProperty("scale.budgets." + name, Double.class);
+    }
+
+    private <T> T setting(String name, Class<T> type) {
+        return environment.getRequiredProperty("scale." + name, type);
+    }
+
+    private static long gcTotal(ToLongFunction<GarbageCollectorMXBean> metric) {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(metric).sum();
+    }
+}
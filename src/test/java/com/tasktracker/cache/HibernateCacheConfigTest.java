@@ -0,0 +1,110 @@
+package com.tasktracker.cache;
+
+import com.tasktracker.entity.DueDateCheckpoint;
+import com.tasktracker.entity.Task;
+import com.tasktracker.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.SharedCacheMode;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.cache.CacheManager;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HibernateCacheConfig Tests")
+class HibernateCacheConfigTest {
+
+    private final DataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:cache-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CacheManager cacheManager = new HibernateCacheConfig().hibernateCacheManager(meterRegistry,
+            100, Duration.ofMinutes(10), 100, Duration.ofMinutes(10), 100, Duration.ofMinutes(10));
+    private SessionFactory sessionFactory;
+
+    @AfterEach
+    void tearDown() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+        cacheManager.close();
+        new JdbcTemplate(dataSource).execute("SHUTDOWN");
+    }
+
+    // The cache settings of spring.jpa.properties in application.yml
+    private SessionFactory build(Configuration configuration) {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        configuration.addAnnotatedClass(User.class);
+        configuration.addAnnotatedClass(Task.class);
+        configuration.getProperties().put(AvailableSettings.DATASOURCE, dataSource);
+        configuration.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+        configuration.setProperty(AvailableSettings.USE_QUERY_CACHE, "true");
+        configuration.setProperty(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+        configuration.setProperty(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        configuration.getProperties().put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        configuration.setProperty(AvailableSettings.GENERATE_STATISTICS, "true");
+        // The entity listeners are Spring beans
+        configuration.setProperty(AvailableSettings.JPA_CALLBACKS_ENABLED, "false");
+        return configuration.buildSessionFactory();
+    }
+
+    @Test
+    @DisplayName("Should refuse to start with a region it does not declare")
+    void build_WithUndeclaredRegion_Fails() {
+        // Arrange
+        // Caches DueDateCheckpoint too, in a region named after it that is not declared
+        Configuration configuration = new Configuration();
+        configuration.addAnnotatedClass(DueDateCheckpoint.class);
+        configuration.setSharedCacheMode(SharedCacheMode.ALL);
+
+        // Act & Assert
+        Exception e = assertThrows(Exception.class, () -> sessionFactory = build(configuration));
+        Throwable cause = e;
+        while (!(cause instanceof CacheException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertInstanceOf(CacheException.class, cause);
+        assertTrue(cause.getMessage().contains(DueDateCheckpoint.class.getName()));
+    }
+
+    @Test
+    @DisplayName("Should resolve a user by email from the natural-id region on the second lookup")
+    void naturalIdLookup_SecondTime_HitsCache() {
+        // Arrange
+        sessionFactory = build(new Configuration());
+        new JdbcTemplate(dataSource).update("INSERT INTO users (id, email, password, name, created_at) "
+                + "VALUES (1, 'a@example.com', 'x', 'User', NOW())");
+        Statistics statistics = sessionFactory.getStatistics();
+
+        // Act
+        Optional<User> first = sessionFactory.fromTransaction(session ->
+                session.bySimpleNaturalId(User.class).loadOptional("a@example.com"));
+        Optional<User> second = sessionFactory.fromTransaction(session ->
+                session.bySimpleNaturalId(User.class).loadOptional("a@example.com"));
+
+        // Assert
+        assertEquals(1L, first.orElseThrow().getId());
+        assertEquals(1L, second.orElseThrow().getId());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("users").getHitCount());
+        // Only the first lookup went to the database
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(cacheManager.getCache("users-by-email").iterator().hasNext());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count());
+    }
+}
@@ -0,0 +1,136 @@
+package com.tasktracker.datasource;
+
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.entity.User;
+import com.tasktracker.event.TaskChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ReplicaRoutingDataSource Tests")
+class ReplicaRoutingDataSourceTest {
+
+    private final String primaryUrl = "jdbc:h2:mem:primary-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private final String replicaName = "replica-" + UUID.randomUUID();
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReadYourWrites readYourWrites;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        readYourWrites = new ReadYourWrites();
+        ReflectionTestUtils.setField(readYourWrites, "window", Duration.ofMinutes(1));
+        createDatabase(primaryUrl, "primary");
+        createDatabase(replicaUrl(), "replica");
+        // The replica may only be opened, never created, so dropping it makes it unreachable
+        DataSource replica = new DriverManagerDataSource("jdbc:h2:mem:" + replicaName + ";IFEXISTS=TRUE");
+        routingDataSource = new ReplicaRoutingDataSource(new DriverManagerDataSource(primaryUrl),
+                Map.of("replica", replica), readYourWrites, meterRegistry);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        new JdbcTemplate(new DriverManagerDataSource(primaryUrl)).execute("SHUTDOWN");
+        dropReplica();
+    }
+
+    private String replicaUrl() {
+        return "jdbc:h2:mem:" + replicaName + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static void createDatabase(String url, String name) {
+        JdbcTemplate database = new JdbcTemplate(new DriverManagerDataSource(url));
+        database.execute("CREATE TABLE node (name VARCHAR(20))");
+        database.update("INSERT INTO node (name) VALUES (?)", name);
+    }
+
+    private void dropReplica() {
+        new JdbcTemplate(new DriverManagerDataSource(replicaUrl())).execute("SHUTDOWN");
+    }
+
+    private String node(TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(tx -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private void authenticate(Long userId) {
+        User user = User.builder().id(userId).email("user" + userId + "@example.com").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replica and everything else to the primary")
+    void getConnection_ShouldRouteByTransactionType() {
+        // Act & Assert
+        assertEquals("replica", node(readOnly));
+        assertEquals("primary", node(readWrite));
+        assertEquals("primary", jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+        assertEquals(1, meterRegistry.get("datasource.reads").tag("target", "replica").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep a user's reads on the primary after their own write")
+    void getConnection_AfterOwnWrite_ShouldReadFromPrimary() {
+        // Arrange
+        readYourWrites.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, 1L,
+                TaskDTO.builder().id(10L).build()));
+
+        // Act & Assert
+        authenticate(1L);
+        assertEquals("primary", node(readOnly));
+        authenticate(2L);
+        assertEquals("replica", node(readOnly));
+
+        ReflectionTestUtils.setField(readYourWrites, "window", Duration.ZERO);
+        authenticate(1L);
+        assertEquals("replica", node(readOnly));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary while the replica is down and return once it is back")
+    void getConnection_ReplicaDown_ShouldFallBackToPrimary() {
+        // Arrange
+        dropReplica();
+
+        // Act & Assert
+        assertEquals("primary", node(readOnly));
+        assertEquals(0, meterRegistry.get("datasource.replicas.healthy").gauge().value());
+        assertEquals("primary", node(readOnly));
+
+        createDatabase(replicaUrl(), "replica");
+        assertEquals("primary", node(readOnly));
+        routingDataSource.checkReplicas();
+        assertEquals(1, meterRegistry.get("datasource.replicas.healthy").gauge().value());
+        assertEquals("replica", node(readOnly));
+    }
+}
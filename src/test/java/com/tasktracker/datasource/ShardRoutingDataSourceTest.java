@@ -0,0 +1,195 @@
+package com.tasktracker.datasource;
+
+import com.tasktracker.entity.User;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShardRoutingDataSource Tests")
+class ShardRoutingDataSourceTest {
+
+    private static final int SHARDS = 3;
+
+    private final List<DataSource> databases = new ArrayList<>();
+    private ShardRoutingDataSource shards;
+    private ShardDirectory shardDirectory;
+    private JdbcTemplate routed;
+    private ShardRebalancer rebalancer;
+
+    @BeforeEach
+    void setUp() {
+        // One embedded database per shard, migrated like the real ones
+        for (int i = 0; i < SHARDS; i++) {
+            DataSource database = new DriverManagerDataSource(
+                    "jdbc:h2:mem:shard-" + i + "-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+            Flyway.configure().dataSource(database).load().migrate();
+            databases.add(database);
+        }
+        shards = new ShardRoutingDataSource(databases);
+        shardDirectory = directory();
+        routed = new JdbcTemplate(new LazyConnectionDataSourceProxy(shards));
+        rebalancer = new ShardRebalancer(shards, shardDirectory);
+        ReflectionTestUtils.setField(rebalancer, "grace", Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        databases.forEach(database -> new JdbcTemplate(database).execute("SHUTDOWN"));
+    }
+
+    private ShardDirectory directory() {
+        ShardDirectory directory = new ShardDirectory(shards, null);
+        ReflectionTestUtils.setField(directory, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(directory, "cacheTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(directory, "pollInterval", Duration.ofSeconds(2));
+        directory.init();
+        return directory;
+    }
+
+    private Long insertUser(String email) {
+        ShardDirectory.Placement placement = shardDirectory.register(email);
+        new JdbcTemplate(databases.get(placement.shard())).update(
+                "INSERT INTO users (id, email, password, name, created_at) VALUES (?, ?, 'x', 'User', NOW())",
+                placement.userId(), email);
+        return placement.userId();
+    }
+
+    private int count(int shard, String sql, Object... args) {
+        return new JdbcTemplate(databases.get(shard)).queryForObject(sql, Integer.class, args);
+    }
+
+    @Test
+    @DisplayName("Should route by the principal's shard unless a shard is pinned")
+    void getConnection_RoutesByPrincipalAndContext() {
+        // Arrange
+        new JdbcTemplate(databases.get(2)).update(
+                "INSERT INTO users (id, email, password, name, created_at) VALUES (7, 'a@example.com', 'x', 'A', NOW())");
+        User user = User.builder().id(7L).email("a@example.com").shard(2).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+
+        // Act
+        Integer byPrincipal = routed.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        Integer pinned = ShardContext.call(1, () -> routed.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+
+        // Assert
+        assertEquals(1, byPrincipal);
+        assertEquals(0, pinned);
+    }
+
+    @Test
+    @DisplayName("Should hand out unique ids, spread users over the shards and reject taken emails")
+    void register_SpreadsUsersAndRejectsDuplicates() {
+        // Act
+        Set<Long> ids = new HashSet<>();
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            ShardDirectory.Placement placement = shardDirectory.register("user" + i + "@example.com");
+            ids.add(placement.userId());
+            used.add(placement.shard());
+            assertEquals(shardDirectory.homeShard(placement.userId()), placement.shard());
+        }
+
+        // Assert
+        assertEquals(30, ids.size());
+        assertEquals(Set.of(0, 1, 2), used);
+        assertThrows(DuplicateKeyException.class, () -> shardDirectory.register("user3@example.com"));
+        assertEquals(shardDirectory.findByEmail("user3@example.com").orElseThrow().shard(),
+                shardDirectory.shardOf(shardDirectory.findByEmail("user3@example.com").orElseThrow().userId()));
+    }
+
+    @Test
+    @DisplayName("Should move a user's rows to the target shard with their ids and switch the directory")
+    void move_CopiesRowsAndSwitchesDirectory() {
+        // Arrange
+        Long userId = insertUser("mover@example.com");
+        int source = shardDirectory.shardOf(userId);
+        int target = (source + 1) % SHARDS;
+        JdbcTemplate sourceDb = new JdbcTemplate(databases.get(source));
+        for (long id = 1; id <= 3; id++) {
+            sourceDb.update("INSERT INTO tasks (id, title, status, priority, created_at, updated_at, user_id) "
+                    + "VALUES (?, 'Task', 'TODO', 'MEDIUM', NOW(), NOW(), ?)", id, userId);
+        }
+        sourceDb.update("INSERT INTO task_tombstones (task_id, user_id, deleted_at) VALUES (4, ?, NOW())", userId);
+
+        // Act
+        long moved = rebalancer.move(userId, target);
+
+        // Assert
+        assertEquals(3, moved);
+        assertEquals(target, shardDirectory.shardOf(userId));
+        ShardDirectory.Placement placement = shardDirectory.findByEmail("mover@example.com").orElseThrow();
+        assertEquals(target, placement.shard());
+        assertFalse(placement.moving());
+        assertEquals(2, placement.version());
+        assertEquals(3, count(target, "SELECT COUNT(*) FROM tasks WHERE user_id = ? AND id BETWEEN 1 AND 3", userId));
+        assertEquals(1, count(target, "SELECT COUNT(*) FROM task_tombstones WHERE user_id = ?", userId));
+        assertEquals(0, count(source, "SELECT COUNT(*) FROM tasks WHERE user_id = ?", userId));
+        assertEquals(0, count(source, "SELECT COUNT(*) FROM users WHERE id = ?", userId));
+    }
+
+    @Test
+    @DisplayName("Should keep the user on the source and lift the fence when the copy fails")
+    void move_WhenCopyFails_KeepsUserOnSource() {
+        // Arrange
+        Long userId = insertUser("stuck@example.com");
+        int source = shardDirectory.shardOf(userId);
+        int target = (source + 1) % SHARDS;
+        new JdbcTemplate(databases.get(source)).update("INSERT INTO tasks (id, title, status, priority, created_at, "
+                + "updated_at, user_id) VALUES (1, 'Task', 'TODO', 'MEDIUM', NOW(), NOW(), ?)", userId);
+        // A leftover of an earlier attempt makes the copy fail
+        new JdbcTemplate(databases.get(target)).update(
+                "INSERT INTO users (id, email, password, name, created_at) VALUES (?, 'stuck@example.com', 'x', 'User', NOW())",
+                userId);
+
+        // Act
+        assertThrows(DuplicateKeyException.class, () -> rebalancer.move(userId, target));
+
+        // Assert
+        ShardDirectory.Placement placement = shardDirectory.findByEmail("stuck@example.com").orElseThrow();
+        assertEquals(source, placement.shard());
+        assertFalse(placement.moving());
+        assertEquals(1, count(source, "SELECT COUNT(*) FROM tasks WHERE user_id = ?", userId));
+        assertEquals(0, count(target, "SELECT COUNT(*) FROM users WHERE id = ?", userId));
+    }
+
+    @Test
+    @DisplayName("Should pick up a fence made by another process at the next poll, not before")
+    void poll_FenceMadeElsewhere_DropsCachedEntry() {
+        // Arrange
+        Long userId = insertUser("fenced@example.com");
+        int shard = shardDirectory.shardOf(userId);
+        assertFalse(shardDirectory.findByEmail("fenced@example.com").orElseThrow().moving());
+        assertTrue(directory().fence(userId, shard));
+
+        // Act
+        ShardDirectory.Placement beforePoll = shardDirectory.findByEmail("fenced@example.com").orElseThrow();
+        shardDirectory.poll();
+        ShardDirectory.Placement afterPoll = shardDirectory.findByEmail("fenced@example.com").orElseThrow();
+
+        // Assert
+        assertFalse(beforePoll.moving());
+        assertTrue(afterPoll.moving());
+        assertEquals(1, afterPoll.version());
+    }
+}
@@ -0,0 +1,237 @@
+package com.tasktracker.due;
+
+import com.tasktracker.datasource.ShardContext;
+import com.tasktracker.datasource.ShardRoutingDataSource;
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.entity.DueDateCheckpoint;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.event.TaskDueEvent;
+import com.tasktracker.repository.DueDateCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DueDateEngine Tests")
+class DueDateEngineTest {
+
+    @Mock
+    private DueDateCheckpointRepository checkpointRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private List<DataSource> databases;
+    private JdbcTemplate jdbcTemplate;
+    private DueDateEngine dueDateEngine;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        // Two shards, so firing has to merge them
+        databases = new ArrayList<>();
+        for (int shard = 0; shard < 2; shard++) {
+            DataSource database = new DriverManagerDataSource(
+                    "jdbc:h2:mem:due-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+            Flyway.configure().dataSource(database).load().migrate();
+            new JdbcTemplate(database).update("INSERT INTO users (id, email, password, name, created_at) "
+                    + "VALUES (?, ?, 'x', 'User', NOW())", shard + 1L, "user" + shard + "@example.com");
+            databases.add(database);
+        }
+        ShardRoutingDataSource shards = new ShardRoutingDataSource(databases);
+        jdbcTemplate = new JdbcTemplate(shards);
+        dueDateEngine = new DueDateEngine(jdbcTemplate, checkpointRepository, eventPublisher,
+                new DataSourceTransactionManager(shards), shards, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dueDateEngine, "reminder", Duration.ofHours(1));
+        dueDateEngine.init();
+        // Stored as TIMESTAMP(6)
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databases.forEach(database -> new JdbcTemplate(database).execute("SHUTDOWN"));
+    }
+
+    private void holdCheckpoint() {
+        when(checkpointRepository.lockByName(DueDateEngine.CHECKPOINT))
+                .thenReturn(Optional.of(new DueDateCheckpoint(DueDateEngine.CHECKPOINT, now.minusHours(2))));
+    }
+
+    // User 1 lives on shard 0, user 2 on shard 1
+    private void insertTask(long id, long userId, TaskStatus status, LocalDateTime dueDate) {
+        ShardContext.run((int) userId - 1, () -> jdbcTemplate.update("INSERT INTO tasks "
+                + "(id, title, status, priority, created_at, due_date, user_id) VALUES (?, 'Task', ?, 'MEDIUM', NOW(), ?, ?)",
+                id, status.name(), dueDate, userId));
+    }
+
+    private List<TaskDueEvent> firedEvents() {
+        ArgumentCaptor<TaskDueEvent> captor = ArgumentCaptor.forClass(TaskDueEvent.class);
+        verify(eventPublisher, atLeast(0)).publishEvent(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static TaskChangedEvent updated(long userId, long taskId, TaskStatus status, LocalDateTime dueDate,
+                                            TaskStatus previousStatus, LocalDateTime previousDueDate) {
+        return new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, userId,
+                TaskDTO.builder().id(taskId).status(status).dueDate(dueDate).build(),
+                TaskDTO.builder().id(taskId).status(previousStatus).dueDate(previousDueDate).build());
+    }
+
+    @Test
+    @DisplayName("Should fire what is due in due-date order across shards, and only once")
+    void tick_FiresDueEventsInOrderOnce() {
+        // Arrange
+        holdCheckpoint();
+        insertTask(1L, 1L, TaskStatus.TODO, now.minusMinutes(90));
+        insertTask(2L, 1L, TaskStatus.TODO, now.plusHours(5));
+        insertTask(3L, 2L, TaskStatus.IN_PROGRESS, now.plusMinutes(30));
+        insertTask(4L, 2L, TaskStatus.TODO, now.minusMinutes(100));
+
+        // Act
+        dueDateEngine.tick();
+        dueDateEngine.tick();
+
+        // Assert
+        assertEquals(List.of(
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 2L, 4L, now.minusMinutes(100)),
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 1L, 1L, now.minusMinutes(90)),
+                new TaskDueEvent(TaskDueEvent.Type.REMINDER, 2L, 3L, now.plusMinutes(30))), firedEvents());
+    }
+
+    @Test
+    @DisplayName("Should fire for a task committed after a tick with a due date that tick had passed")
+    void tick_LateCommittedTask_Fires() {
+        // Arrange
+        holdCheckpoint();
+        dueDateEngine.tick();
+        insertTask(1L, 1L, TaskStatus.TODO, now.minusDays(3));
+
+        // Act
+        dueDateEngine.tick();
+
+        // Assert
+        assertEquals(List.of(new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 1L, 1L, now.minusDays(3))), firedEvents());
+    }
+
+    @Test
+    @DisplayName("Should fire again once a fired task is re-dated into the past")
+    void tick_RedatedTask_FiresAgain() {
+        // Arrange
+        holdCheckpoint();
+        insertTask(1L, 1L, TaskStatus.TODO, now.minusMinutes(10));
+        dueDateEngine.tick();
+        ShardContext.run(0, () -> {
+            jdbcTemplate.update("UPDATE tasks SET due_date = ? WHERE id = 1", now.minusDays(2));
+            dueDateEngine.onTaskChanged(updated(1L, 1L, TaskStatus.TODO, now.minusDays(2),
+                    TaskStatus.TODO, now.minusMinutes(10)));
+        });
+
+        // Act
+        dueDateEngine.tick();
+
+        // Assert
+        assertEquals(List.of(
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 1L, 1L, now.minusMinutes(10)),
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 1L, 1L, now.minusDays(2))), firedEvents());
+    }
+
+    @Test
+    @DisplayName("Should announce nothing for a done task until it is reopened")
+    void tick_DoneTask_FiresOnceReopened() {
+        // Arrange
+        holdCheckpoint();
+        insertTask(1L, 1L, TaskStatus.DONE, now.minusMinutes(10));
+        dueDateEngine.tick();
+        ShardContext.run(0, () -> {
+            jdbcTemplate.update("UPDATE tasks SET status = 'TODO' WHERE id = 1");
+            dueDateEngine.onTaskChanged(updated(1L, 1L, TaskStatus.TODO, now.minusMinutes(10),
+                    TaskStatus.DONE, now.minusMinutes(10)));
+        });
+
+        // Act
+        dueDateEngine.tick();
+
+        // Assert
+        assertEquals(List.of(new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 1L, 1L, now.minusMinutes(10))), firedEvents());
+    }
+
+    @Test
+    @DisplayName("Should keep a reset made after the engine read the task")
+    void tick_ResetWhileFiring_IsKept() {
+        // Arrange
+        holdCheckpoint();
+        insertTask(1L, 1L, TaskStatus.TODO, now.minusMinutes(10));
+        // The task moves between the engine's read and its write-back, committed on its own connection
+        doAnswer(invocation -> {
+            new JdbcTemplate(databases.get(0)).update("UPDATE tasks SET due_date = ?, due_events = 0 WHERE id = 1",
+                    now.minusMinutes(5));
+            return null;
+        }).doNothing().when(eventPublisher).publishEvent(any(TaskDueEvent.class));
+
+        // Act
+        dueDateEngine.tick();
+        dueDateEngine.tick();
+
+        // Assert
+        assertEquals(List.of(
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 1L, 1L, now.minusMinutes(10)),
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 1L, 1L, now.minusMinutes(5))), firedEvents());
+    }
+
+    @Test
+    @DisplayName("Should leave the tick to the instance holding the checkpoint")
+    void tick_CheckpointHeldElsewhere_FiresNothing() {
+        // Arrange
+        when(checkpointRepository.lockByName(DueDateEngine.CHECKPOINT)).thenReturn(Optional.empty());
+        insertTask(1L, 1L, TaskStatus.TODO, now.minusMinutes(10));
+
+        // Act
+        dueDateEngine.tick();
+
+        // Assert
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Should create the checkpoint on the first start")
+    void start_WithoutCheckpoint_CreatesIt() {
+        // Arrange
+        when(checkpointRepository.findById(DueDateEngine.CHECKPOINT)).thenReturn(Optional.empty());
+        when(checkpointRepository.lockByName(DueDateEngine.CHECKPOINT)).thenReturn(Optional.empty());
+
+        // Act
+        dueDateEngine.start();
+
+        // Assert
+        ArgumentCaptor<DueDateCheckpoint> captor = ArgumentCaptor.forClass(DueDateCheckpoint.class);
+        verify(checkpointRepository).saveAndFlush(captor.capture());
+        assertEquals(DueDateEngine.CHECKPOINT, captor.getValue().getName());
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,70 @@
+package com.tasktracker.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SchemaIndexCheck Tests")
+class SchemaIndexCheckTest {
+
+    private final DataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:schema-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    // Same settings as spring.flyway in application.yml
+    private void migrate() {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+
+    @Test
+    @DisplayName("Should pass on a migrated database and fail once an index is dropped")
+    void checkIndexes_MissingIndex_ThrowsException() throws Exception {
+        // Arrange
+        migrate();
+        SchemaIndexCheck check = new SchemaIndexCheck(dataSource, null);
+        check.checkIndexes();
+        jdbcTemplate.execute("DROP INDEX idx_tasks_user_due");
+
+        // Act & Assert
+        IllegalStateException e = assertThrows(IllegalStateException.class, check::checkIndexes);
+        assertTrue(e.getMessage().contains("tasks.idx_tasks_user_due"));
+    }
+
+    @Test
+    @DisplayName("Should add the missing tables and indexes to a schema created by ddl-auto")
+    void migrate_ExistingSchema_AddsIndexes() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "email VARCHAR(255) NOT NULL UNIQUE, password VARCHAR(255) NOT NULL, name VARCHAR(255) NOT NULL, "
+                + "created_at TIMESTAMP(6) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE tasks (id BIGINT PRIMARY KEY, title VARCHAR(255) NOT NULL, description TEXT, "
+                + "status VARCHAR(255) NOT NULL, priority VARCHAR(255) NOT NULL, created_at TIMESTAMP(6) NOT NULL, "
+                + "updated_at TIMESTAMP(6), due_date TIMESTAMP(6), user_id BIGINT REFERENCES users (id))");
+        jdbcTemplate.update("INSERT INTO users (email, password, name, created_at) VALUES ('a@example.com', 'x', 'A', NOW())");
+
+        // Act
+        migrate();
+
+        // Assert
+        new SchemaIndexCheck(dataSource, null).checkIndexes();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+    }
+}
@@ -0,0 +1,116 @@
+package com.tasktracker.search;
+
+import com.tasktracker.datasource.ShardRoutingDataSource;
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.repository.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TaskSearchIndex Tests")
+class TaskSearchIndexTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 10, 12, 0);
+
+    @TempDir
+    Path indexPath;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    // One shard; the repository is mocked, so its data source is never used
+    @Spy
+    private ShardRoutingDataSource shards = new ShardRoutingDataSource(List.of(new DriverManagerDataSource()));
+
+    @InjectMocks
+    private TaskSearchIndex taskSearchIndex;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(taskSearchIndex, "enabled", true);
+        ReflectionTestUtils.setField(taskSearchIndex, "indexPath", indexPath);
+        taskSearchIndex.open();
+
+        when(taskRepository.findDocumentsAfterId(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                document(1L, 1L, "Quarterly report", "Collect numbers from finance", TaskStatus.TODO),
+                document(2L, 1L, "Call the plumber", "Kitchen sink is leaking, mention the report", TaskStatus.DONE),
+                document(3L, 2L, "Quarterly report", "Another user's task", TaskStatus.TODO)
+        ));
+        when(taskRepository.findDocumentsAfterId(eq(3L), any(Pageable.class))).thenReturn(List.of());
+        taskSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        taskSearchIndex.close();
+    }
+
+    private TaskDocument document(Long id, Long userId, String title, String description, TaskStatus status) {
+        return new TaskDocument(id, userId, title, description, status, TaskPriority.MEDIUM, CREATED_AT.plusMinutes(id));
+    }
+
+    @Test
+    @DisplayName("Should rank title matches above description matches")
+    void search_WithTermInTitleAndDescription_ShouldRankTitleFirst() {
+        List<Long> ids = taskSearchIndex.search(1L, "report", null, null, 0, 10);
+
+        assertTrue(taskSearchIndex.isReady());
+        assertEquals(List.of(1L, 2L), ids);
+    }
+
+    @Test
+    @DisplayName("Should match prefixes and small typos")
+    void search_WithPrefixOrTypo_ShouldMatch() {
+        assertEquals(List.of(2L), taskSearchIndex.search(1L, "plumb", null, null, 0, 10));
+        assertEquals(List.of(1L), taskSearchIndex.search(1L, "quartrly", null, null, 0, 10));
+    }
+
+    @Test
+    @DisplayName("Should only return the user's tasks matching the filters")
+    void search_WithStatusFilter_ShouldApplyUserAndStatus() {
+        assertEquals(List.of(1L), taskSearchIndex.search(1L, "report", TaskStatus.TODO, null, 0, 10));
+        assertEquals(List.of(3L), taskSearchIndex.search(2L, "report", null, null, 0, 10));
+    }
+
+    @Test
+    @DisplayName("Should apply task changes incrementally")
+    void onTaskChanged_WithUpdateAndDelete_ShouldUpdateIndex() throws Exception {
+        TaskDTO renamed = TaskDTO.builder()
+                .id(2L)
+                .title("Call the electrician")
+                .status(TaskStatus.TODO)
+                .priority(TaskPriority.HIGH)
+                .createdAt(CREATED_AT)
+                .build();
+
+        taskSearchIndex.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, 1L, renamed));
+        taskSearchIndex.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.DELETED, 1L,
+                TaskDTO.builder().id(1L).build()));
+
+        assertEquals(List.of(), taskSearchIndex.search(1L, "report", null, null, 0, 10));
+        assertEquals(List.of(2L), taskSearchIndex.search(1L, "electrician", null, null, 0, 10));
+    }
+}
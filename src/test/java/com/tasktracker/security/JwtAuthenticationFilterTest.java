@@ -0,0 +1,145 @@
+package com.tasktracker.security;
+
+import com.tasktracker.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JwtAuthenticationFilter Tests")
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "dGhpc2lzYXZlcnlsb25nc2VjcmV0a2V5Zm9yand0dG9rZW5nZW5lcmF0aW9uYW5kdmFsaWRhdGlvbjEyMzQ1Njc4OQ==";
+
+    private JwtService jwtService;
+    private MeterRegistry meterRegistry;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtService, "streamExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxSize", 100L);
+        jwtService.init();
+        meterRegistry = new SimpleMeterRegistry();
+        testUser = User.builder()
+                .id(1L)
+                .name("Test User")
+                .email("test@example.com")
+                .password("encodedPassword")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void filter(JwtAuthenticationFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private void stream(JwtAuthenticationFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks/stream");
+        request.setParameter("access_token", token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("auth.jwt.validations").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should authenticate a valid token and count it")
+    void doFilter_WithValidToken_ShouldCountValid() throws Exception {
+        // Arrange
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, username -> testUser, meterRegistry);
+
+        // Act
+        filter(filter, jwtService.generateToken(testUser));
+
+        // Assert
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, outcome("valid"));
+        assertEquals(0, outcome("bad_signature"));
+    }
+
+    @Test
+    @DisplayName("Should count forged and malformed tokens separately")
+    void doFilter_WithInvalidTokens_ShouldCountByOutcome() throws Exception {
+        // Arrange
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, username -> testUser, meterRegistry);
+        String token = jwtService.generateToken(testUser);
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        // Act
+        filter(filter, forged);
+        filter(filter, "not-a-jwt");
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, outcome("bad_signature"));
+        assertEquals(1, outcome("malformed"));
+        assertEquals(0, outcome("valid"));
+    }
+
+    @Test
+    @DisplayName("Should count tokens for users that no longer exist")
+    void doFilter_WithDeletedUser_ShouldCountUnknownUser() throws Exception {
+        // Arrange
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, username -> {
+            throw new UsernameNotFoundException(username);
+        }, meterRegistry);
+
+        // Act
+        filter(filter, jwtService.generateToken(testUser));
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, outcome("unknown_user"));
+    }
+
+    @Test
+    @DisplayName("Should open the stream with a stream token in the URL, as EventSource sends it")
+    void doFilter_WithStreamTokenInUrl_ShouldAuthenticateStream() throws Exception {
+        // Arrange
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, username -> testUser, meterRegistry);
+
+        // Act
+        stream(filter, jwtService.generateStreamToken(testUser));
+
+        // Assert
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, outcome("valid"));
+    }
+
+    @Test
+    @DisplayName("Should take stream tokens only in the stream URL, and nothing else there")
+    void doFilter_WithTokenInWrongPlace_ShouldReject() throws Exception {
+        // Arrange
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, username -> testUser, meterRegistry);
+
+        // Act
+        filter(filter, jwtService.generateStreamToken(testUser));
+        stream(filter, jwtService.generateToken(testUser));
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(2, outcome("rejected"));
+        assertEquals(0, outcome("valid"));
+    }
+}
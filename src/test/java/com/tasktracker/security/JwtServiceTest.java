@@ -0,0 +1,81 @@
+package com.tasktracker.security;
+
+import com.tasktracker.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JwtService Tests")
+class JwtServiceTest {
+
+    private static final String SECRET = "dGhpc2lzYXZlcnlsb25nc2VjcmV0a2V5Zm9yand0dG9rZW5nZW5lcmF0aW9uYW5kdmFsaWRhdGlvbjEyMzQ1Njc4OQ==";
+
+    private JwtService jwtService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = jwtService(86_400_000L);
+        testUser = User.builder()
+                .id(1L)
+                .name("Test User")
+                .email("test@example.com")
+                .password("encodedPassword")
+                .build();
+    }
+
+    private JwtService jwtService(long expiration) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "jwtExpiration", expiration);
+        ReflectionTestUtils.setField(service, "cacheMaxSize", 100L);
+        service.init();
+        return service;
+    }
+
+    @Test
+    @DisplayName("Should verify a token once and reuse the claims")
+    void parseToken_CalledTwice_ShouldReturnCachedClaims() {
+        String token = jwtService.generateToken(testUser);
+
+        Claims first = jwtService.parseToken(token);
+        Claims second = jwtService.parseToken(token);
+
+        assertEquals("test@example.com", first.getSubject());
+        assertSame(first, second);
+        assertTrue(jwtService.isTokenValid(first, testUser));
+    }
+
+    @Test
+    @DisplayName("Should reject a token with a tampered signature")
+    void parseToken_WithTamperedSignature_ShouldThrowException() {
+        String token = jwtService.generateToken(testUser);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.parseToken(tampered));
+    }
+
+    @Test
+    @DisplayName("Should reject an expired token")
+    void parseToken_WithExpiredToken_ShouldThrowException() {
+        String token = jwtService(-1000L).generateToken(testUser);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parseToken(token));
+    }
+
+    @Test
+    @DisplayName("Should not accept a token issued for another user")
+    void isTokenValid_WithOtherUser_ShouldReturnFalse() {
+        String token = jwtService.generateToken(testUser);
+        User otherUser = User.builder().email("other@example.com").build();
+
+        assertFalse(jwtService.isTokenValid(token, otherUser));
+    }
+}
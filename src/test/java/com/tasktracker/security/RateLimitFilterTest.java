@@ -0,0 +1,117 @@
+package com.tasktracker.security;
+
+import com.tasktracker.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RateLimitFilter Tests")
+class RateLimitFilterTest {
+
+    private MeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        // Slow refill so nothing comes back while a test runs
+        ReflectionTestUtils.setField(filter, "userCapacity", 10);
+        ReflectionTestUtils.setField(filter, "userRefill", 0.01);
+        ReflectionTestUtils.setField(filter, "addressCapacity", 2);
+        ReflectionTestUtils.setField(filter, "addressRefill", 0.01);
+        ReflectionTestUtils.setField(filter, "exportCost", 5);
+        filter.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(Long userId) {
+        User user = User.builder().id(userId).email("user" + userId + "@example.com").password("x").name("U").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    private MockHttpServletResponse send(String method, String uri, String address) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(address);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    @DisplayName("Should throttle a user once exports drain the bucket, without affecting other users")
+    void doFilter_ExportsDrainUserBucket_Returns429WithRetryAfter() throws Exception {
+        // Arrange
+        authenticate(1L);
+        send("GET", "/api/tasks/export", "10.0.0.1");
+        send("POST", "/api/tasks/exports", "10.0.0.1");
+
+        // Act
+        MockHttpServletResponse throttled = send("GET", "/api/tasks", "10.0.0.1");
+        authenticate(2L);
+        MockHttpServletResponse otherUser = send("GET", "/api/tasks", "10.0.0.1");
+
+        // Assert
+        assertEquals(429, throttled.getStatus());
+        assertTrue(Long.parseLong(throttled.getHeader("Retry-After")) >= 1);
+        assertEquals(200, otherUser.getStatus());
+        assertEquals(1, meterRegistry.get("http.rate-limit.rejected").tag("limit", "user").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should limit auth endpoints per address even when a token is present")
+    void doFilter_AuthEndpoints_LimitedPerAddress() throws Exception {
+        // Arrange
+        authenticate(1L);
+        send("POST", "/api/auth/login", "10.0.0.1");
+        send("POST", "/api/auth/login", "10.0.0.1");
+
+        // Act
+        MockHttpServletResponse throttled = send("POST", "/api/auth/login", "10.0.0.1");
+        MockHttpServletResponse otherAddress = send("POST", "/api/auth/login", "10.0.0.2");
+        MockHttpServletResponse tasks = send("GET", "/api/tasks", "10.0.0.1");
+        MockHttpServletResponse health = send("GET", "/actuator/health", "10.0.0.1");
+
+        // Assert
+        assertEquals(429, throttled.getStatus());
+        assertEquals(200, otherAddress.getStatus());
+        assertEquals(200, tasks.getStatus());
+        assertEquals(200, health.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should refill over time and report when the next tokens arrive")
+    void tryConsume_RefillsOverTime() {
+        // Arrange
+        RateLimitFilter.Limit limit = RateLimitFilter.Limit.of(2, 1.0);
+        RateLimitFilter.TokenBucket bucket = new RateLimitFilter.TokenBucket(0);
+        long second = TimeUnit.SECONDS.toNanos(1);
+
+        // Act & Assert
+        assertEquals(0, bucket.tryConsume(2, limit, 0));
+        assertEquals(second, bucket.tryConsume(1, limit, 0));
+        assertEquals(0, bucket.tryConsume(1, limit, second));
+        assertFalse(bucket.isFull(second));
+        assertTrue(bucket.isFull(3 * second));
+    }
+}
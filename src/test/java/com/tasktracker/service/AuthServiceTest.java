@@ -1,9 +1,11 @@
 package com.tasktracker.service;
 
+import com.tasktracker.datasource.ShardDirectory;
 import com.tasktracker.dto.AuthRequest;
 import com.tasktracker.dto.AuthResponse;
 import com.tasktracker.dto.RegisterRequest;
 import com.tasktracker.entity.User;
+import com.tasktracker.exception.TooManyRequestsException;
 import com.tasktracker.repository.UserRepository;
 import com.tasktracker.security.JwtService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,13 +17,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Optional;
-
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -33,6 +34,9 @@ class AuthServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ShardDirectory shardDirectory;
+
     @Mock
     private PasswordEncoder passwordEncoder;
 
@@ -67,9 +71,8 @@ class AuthServiceTest {
             // Arrange
             RegisterRequest request = new RegisterRequest("Test User", "test@example.com", "password123");
 
-            when(userRepository.existsByEmail("test@example.com")).thenReturn(false);
+            when(shardDirectory.register("test@example.com")).thenReturn(new ShardDirectory.Placement(1L, 1, false, 0));
             when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
-            when(userRepository.save(any(User.class))).thenReturn(testUser);
             when(jwtService.generateToken(any(User.class))).thenReturn("jwt-token");
 
             // Act
@@ -84,10 +87,38 @@ class AuthServiceTest {
             // Verify password was encoded
             verify(passwordEncoder).encode("password123");
 
-            // Verify user was saved
+            // Verify user was saved with the id and shard from the directory
             ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-            verify(userRepository).save(userCaptor.capture());
+            verify(userRepository).persist(userCaptor.capture());
             assertEquals("encodedPassword", userCaptor.getValue().getPassword());
+            assertEquals(1L, userCaptor.getValue().getId());
+            assertEquals(1, userCaptor.getValue().getShard());
+        }
+
+        @Test
+        @DisplayName("Should release the email when the user cannot be written")
+        void register_WhenShardWriteFails_ShouldRemoveDirectoryEntry() {
+            // Arrange
+            RegisterRequest request = new RegisterRequest("Test User", "test@example.com", "password123");
+            when(shardDirectory.register("test@example.com")).thenReturn(new ShardDirectory.Placement(1L, 1, false, 0));
+            when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
+            doThrow(new IllegalStateException("Shard unavailable")).when(userRepository).persist(any(User.class));
+
+            // Act & Assert
+            assertThrows(IllegalStateException.class, () -> authService.register(request));
+            verify(shardDirectory).remove(1L);
+        }
+
+        @Test
+        @DisplayName("Should not claim the email when the password cannot be hashed")
+        void register_WhenEncoderIsFull_ShouldNotRegisterInDirectory() {
+            // Arrange
+            RegisterRequest request = new RegisterRequest("Test User", "test@example.com", "password123");
+            when(passwordEncoder.encode("password123")).thenThrow(new TooManyRequestsException("Too many password hashes in progress"));
+
+            // Act & Assert
+            assertThrows(TooManyRequestsException.class, () -> authService.register(request));
+            verify(shardDirectory, never()).register(any());
         }
 
         @Test
@@ -95,14 +126,15 @@ class AuthServiceTest {
         void register_WithExistingEmail_ShouldThrowException() {
             // Arrange
             RegisterRequest request = new RegisterRequest("Test User", "existing@example.com", "password123");
-            when(userRepository.existsByEmail("existing@example.com")).thenReturn(true);
+            when(shardDirectory.register("existing@example.com"))
+                    .thenThrow(new DuplicateKeyException("uk_user_shards_email"));
 
             // Act & Assert
             RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> authService.register(request));
 
             assertEquals("Email already exists", exception.getMessage());
-            verify(userRepository, never()).save(any());
+            verify(userRepository, never()).persist(any());
         }
     }
 
@@ -116,7 +148,8 @@ class AuthServiceTest {
             // Arrange
             AuthRequest request = new AuthRequest("test@example.com", "password123");
 
-            when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+            when(authenticationManager.authenticate(any()))
+                    .thenReturn(new UsernamePasswordAuthenticationToken(testUser, null, testUser.getAuthorities()));
             when(jwtService.generateToken(testUser)).thenReturn("jwt-token");
 
             // Act
@@ -154,7 +187,9 @@ class AuthServiceTest {
             // Arrange
             AuthRequest request = new AuthRequest("notfound@example.com", "password123");
 
-            when(userRepository.findByEmail("notfound@example.com")).thenReturn(Optional.empty());
+            // The provider reports unknown emails as bad credentials
+            when(authenticationManager.authenticate(any()))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
 
             // Act & Assert
             assertThrows(RuntimeException.class,
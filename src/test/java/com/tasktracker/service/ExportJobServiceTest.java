@@ -0,0 +1,148 @@
+package com.tasktracker.service;
+
+import com.tasktracker.dto.ExportFormat;
+import com.tasktracker.dto.ExportJobDTO;
+import com.tasktracker.dto.ExportJobStatus;
+import com.tasktracker.entity.User;
+import com.tasktracker.exception.ExportNotReadyException;
+import com.tasktracker.exception.TooManyRequestsException;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ExportJobService Tests")
+class ExportJobServiceTest {
+
+    @TempDir
+    private Path spoolDir;
+
+    private TaskExportService taskExportService;
+    private ExportJobService exportJobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        taskExportService = mock(TaskExportService.class);
+        exportJobService = new ExportJobService(taskExportService, new MockEnvironment());
+        ReflectionTestUtils.setField(exportJobService, "poolSize", 1);
+        ReflectionTestUtils.setField(exportJobService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(exportJobService, "maxJobsPerUser", 2);
+        // Expired as soon as they finish, with no grace after a download
+        ReflectionTestUtils.setField(exportJobService, "ttl", Duration.ZERO);
+        ReflectionTestUtils.setField(exportJobService, "cleanupInterval", Duration.ZERO);
+        ReflectionTestUtils.setField(exportJobService, "spoolDir", spoolDir);
+        exportJobService.init();
+        User user = User.builder().id(1L).email("test@example.com").build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportJobService.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    private ExportJobDTO awaitFinished(ExportJobDTO job) throws InterruptedException {
+        for (int i = 0; i < 500 && !isFinished(job.getStatus()); i++) {
+            Thread.sleep(10);
+            job = exportJobService.getExport(job.getId());
+        }
+        return job;
+    }
+
+    private static boolean isFinished(ExportJobStatus status) {
+        return status == ExportJobStatus.COMPLETED || status == ExportJobStatus.FAILED;
+    }
+
+    @Test
+    @DisplayName("Should refuse to download an export that is still running, with its status")
+    void getExportFile_WhileRunning_ThrowsNotReady() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskExportService.write(any(), any(), any(), any(), any(), any(OutputStream.class))).thenAnswer(invocation -> {
+            release.await();
+            return 0L;
+        });
+        ExportJobDTO job = exportJobService.createExport(ExportFormat.CSV, null, null, null);
+
+        // Act & Assert
+        try {
+            ExportNotReadyException e = assertThrows(ExportNotReadyException.class,
+                    () -> exportJobService.getExportFile(job.getId()));
+            assertFalse(isFinished(e.getStatus()));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep an expired export's file while it is being downloaded")
+    void removeExpiredJobs_DuringDownload_KeepsFile() throws Exception {
+        // Arrange
+        when(taskExportService.write(any(), any(), any(), any(), any(), any(OutputStream.class))).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(5).write("id\r\n".getBytes());
+            return 0L;
+        });
+        ExportJobDTO job = awaitFinished(exportJobService.createExport(ExportFormat.CSV, null, null, null));
+        assertEquals(ExportJobStatus.COMPLETED, job.getStatus());
+
+        // Act
+        Path path;
+        try (ExportJobService.ExportFile file = exportJobService.getExportFile(job.getId())) {
+            path = file.path();
+            exportJobService.removeExpiredJobs();
+
+            // Assert
+            assertTrue(Files.exists(path));
+            assertEquals(job.getId(), exportJobService.getExport(job.getId()).getId());
+        }
+        exportJobService.removeExpiredJobs();
+        assertFalse(Files.exists(path));
+        assertThrows(EntityNotFoundException.class, () -> exportJobService.getExportFile(job.getId()));
+    }
+
+    @Test
+    @DisplayName("Should hold the per-user limit while exports run and forget the user once they finish")
+    void createExport_AfterExportsFinish_FreesUserEntry() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskExportService.write(any(), any(), any(), any(), any(), any(OutputStream.class))).thenAnswer(invocation -> {
+            release.await();
+            return 0L;
+        });
+        ExportJobDTO first = exportJobService.createExport(ExportFormat.CSV, null, null, null);
+        ExportJobDTO second = exportJobService.createExport(ExportFormat.CSV, null, null, null);
+        assertThrows(TooManyRequestsException.class, () -> exportJobService.createExport(ExportFormat.CSV, null, null, null));
+
+        // Act
+        release.countDown();
+        awaitFinished(first);
+        awaitFinished(second);
+        Map<?, ?> activeJobsByUser = (Map<?, ?>) ReflectionTestUtils.getField(exportJobService, "activeJobsByUser");
+        // The slot is released just after the job is marked finished
+        for (int i = 0; i < 500 && !activeJobsByUser.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+
+        // Assert
+        assertTrue(activeJobsByUser.isEmpty());
+    }
+}
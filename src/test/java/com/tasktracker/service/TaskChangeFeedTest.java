@@ -0,0 +1,206 @@
+package com.tasktracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TaskChangeFeed Tests")
+class TaskChangeFeedTest {
+
+    private static final int BUFFER_SIZE = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskChangeFeed taskChangeFeed;
+    private CountDownLatch blockWrites = new CountDownLatch(0);
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+        meterRegistry = new SimpleMeterRegistry();
+        taskChangeFeed = new TaskChangeFeed(objectMapper, new MockEnvironment(), meterRegistry) {
+            @Override
+            SseEmitter createEmitter(long timeoutMillis) {
+                return new RecordingEmitter();
+            }
+        };
+        ReflectionTestUtils.setField(taskChangeFeed, "maxStreamsPerUser", 2);
+        // Room for a full replay even when the writer has not started yet
+        ReflectionTestUtils.setField(taskChangeFeed, "bufferSize", BUFFER_SIZE);
+        ReflectionTestUtils.setField(taskChangeFeed, "timeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(taskChangeFeed, "replayWindow", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(taskChangeFeed, "replaySize", 3);
+        ReflectionTestUtils.setField(taskChangeFeed, "poolSize", 1);
+        ReflectionTestUtils.setField(taskChangeFeed, "queueCapacity", 10);
+        taskChangeFeed.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        blockWrites.countDown();
+        taskChangeFeed.shutdown();
+    }
+
+    private void publish(TaskChangedEvent.Type type, Long userId, Long taskId) {
+        taskChangeFeed.onTaskChanged(new TaskChangedEvent(type, userId,
+                TaskDTO.builder().id(taskId).title("Task " + taskId).build()));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the stream");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Should push committed changes to the owner's streams only")
+    void onTaskChanged_ShouldReachOnlyOwnerStreams() throws Exception {
+        // Arrange
+        RecordingEmitter owner = (RecordingEmitter) taskChangeFeed.subscribe(1L, null);
+        RecordingEmitter other = (RecordingEmitter) taskChangeFeed.subscribe(2L, null);
+
+        // Act
+        publish(TaskChangedEvent.Type.CREATED, 1L, 10L);
+        publish(TaskChangedEvent.Type.DELETED, 1L, 10L);
+
+        // Assert
+        await(() -> owner.names().size() == 3);
+        assertEquals(List.of("ready", "created", "deleted"), owner.names());
+        assertTrue(owner.frames.get(1).contains("\"id\":10"));
+        await(() -> other.names().size() == 1);
+        assertEquals(List.of("ready"), other.names());
+    }
+
+    @Test
+    @DisplayName("Should replay missed events from Last-Event-ID and reset when they are gone")
+    void subscribe_WithLastEventId_ShouldResumeOrReset() throws Exception {
+        // Arrange
+        RecordingEmitter first = (RecordingEmitter) taskChangeFeed.subscribe(1L, null);
+        publish(TaskChangedEvent.Type.CREATED, 1L, 10L);
+        await(() -> first.names().size() == 2);
+        String lastEventId = first.ids().get(1);
+        first.complete();
+        publish(TaskChangedEvent.Type.UPDATED, 1L, 10L);
+        publish(TaskChangedEvent.Type.CREATED, 1L, 11L);
+
+        // Act
+        RecordingEmitter resumed = (RecordingEmitter) taskChangeFeed.subscribe(1L, lastEventId);
+        publish(TaskChangedEvent.Type.CREATED, 1L, 12L);
+        publish(TaskChangedEvent.Type.CREATED, 1L, 13L);
+        RecordingEmitter tooOld = (RecordingEmitter) taskChangeFeed.subscribe(1L, lastEventId);
+        RecordingEmitter otherEpoch = (RecordingEmitter) taskChangeFeed.subscribe(2L, "abc-1");
+
+        // Assert
+        await(() -> resumed.names().size() == 5);
+        assertEquals(List.of("updated", "created", "ready", "created", "created"), resumed.names());
+        await(() -> tooOld.names().size() == 1 && otherEpoch.names().size() == 1);
+        assertEquals(List.of("reset"), tooOld.names());
+        assertEquals(List.of("reset"), otherEpoch.names());
+    }
+
+    @Test
+    @DisplayName("Should close a stream that falls behind instead of buffering without bound")
+    void onTaskChanged_SlowClient_ShouldCloseStream() throws Exception {
+        // Arrange
+        blockWrites = new CountDownLatch(1);
+        RecordingEmitter slow = (RecordingEmitter) taskChangeFeed.subscribe(1L, null);
+        await(() -> slow.writing);
+
+        // Act
+        for (long taskId = 1; taskId <= BUFFER_SIZE + 2; taskId++) {
+            publish(TaskChangedEvent.Type.CREATED, 1L, taskId);
+        }
+        blockWrites.countDown();
+
+        // Assert
+        await(() -> slow.completed);
+        assertTrue(slow.names().size() <= BUFFER_SIZE + 1);
+        assertEquals(1, meterRegistry.get("tasks.feed.overflows").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should limit the number of open streams per user")
+    void subscribe_OverLimit_ShouldThrowTooManyRequests() {
+        // Arrange
+        taskChangeFeed.subscribe(1L, null);
+        taskChangeFeed.subscribe(1L, null);
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> taskChangeFeed.subscribe(1L, null));
+        assertDoesNotThrow(() -> taskChangeFeed.subscribe(2L, null));
+    }
+
+    /**
+     * Records written frames in place of a servlet response; completion runs the registered
+     * callback as the container would.
+     */
+    private class RecordingEmitter extends SseEmitter {
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private volatile boolean writing;
+        private volatile boolean completed;
+        private Runnable onCompletion = () -> {
+        };
+
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            onCompletion = callback;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            writing = true;
+            try {
+                blockWrites.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            frames.add(items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            onCompletion.run();
+        }
+
+        List<String> names() {
+            return field("event:");
+        }
+
+        List<String> ids() {
+            return field("id:");
+        }
+
+        private List<String> field(String prefix) {
+            return frames.stream()
+                    .flatMap(frame -> frame.lines().filter(line -> line.startsWith(prefix)))
+                    .map(line -> line.substring(prefix.length()))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.tasktracker.service;
+
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.event.TaskChangedEvent;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TaskDataVersions Tests")
+class TaskDataVersionsTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private TaskDataVersions taskDataVersions;
+
+    @BeforeEach
+    void setUp() {
+        DataSource database = new DriverManagerDataSource(
+                "jdbc:h2:mem:versions-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(database).load().migrate();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        for (long id = 1; id <= 2; id++) {
+            jdbcTemplate.update("INSERT INTO users (id, email, password, name, created_at) VALUES (?, ?, 'x', 'User', NOW())",
+                    id, "user" + id + "@example.com");
+        }
+        taskDataVersions = new TaskDataVersions(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    private static TaskChangedEvent created(Long userId, Long taskId) {
+        return new TaskChangedEvent(TaskChangedEvent.Type.CREATED, userId, TaskDTO.builder().id(taskId).title("New").build());
+    }
+
+    @Test
+    @DisplayName("Should change the ETag only for the user whose tasks changed")
+    void onTaskChanged_ShouldBumpOnlyThatUser() {
+        // Arrange
+        String user1 = taskDataVersions.eTag(1L, "/api/tasks");
+        String user2 = taskDataVersions.eTag(2L, "/api/tasks");
+
+        // Act
+        taskDataVersions.onTaskChanged(created(1L, 5L));
+
+        // Assert
+        assertEquals(1L, taskDataVersions.current(1L));
+        assertNotEquals(user1, taskDataVersions.eTag(1L, "/api/tasks"));
+        assertEquals(user2, taskDataVersions.eTag(2L, "/api/tasks"));
+    }
+
+    @Test
+    @DisplayName("Should issue the same tag from another instance, since the version is stored")
+    void eTag_ShouldMatchAcrossInstances() {
+        // Arrange
+        TaskDataVersions otherInstance = new TaskDataVersions(jdbcTemplate);
+
+        // Act
+        otherInstance.onTaskChanged(created(1L, 5L));
+
+        // Assert
+        assertEquals(otherInstance.eTag(1L, "/api/tasks"), taskDataVersions.eTag(1L, "/api/tasks"));
+    }
+
+    @Test
+    @DisplayName("Should bump once per write transaction, and not at all when it rolls back")
+    void onTaskChanged_InTransaction_BumpsOnceOnCommit() {
+        // Act
+        transactionTemplate.executeWithoutResult(status -> {
+            taskDataVersions.onTaskChanged(created(1L, 5L));
+            taskDataVersions.onTaskChanged(created(1L, 6L));
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            taskDataVersions.onTaskChanged(created(1L, 7L));
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        assertEquals(1L, taskDataVersions.current(1L));
+    }
+
+    @Test
+    @DisplayName("Should hand the committed version to after-commit listeners ordered before it")
+    void committedVersion_AfterCommit_ShouldBeTheBumpedVersion() {
+        // Arrange
+        jdbcTemplate.update("UPDATE users SET task_data_version = 4 WHERE id = 1");
+        List<Long> seen = new ArrayList<>();
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> {
+            taskDataVersions.onTaskChanged(created(1L, 5L));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    seen.add(taskDataVersions.committedVersion(1L));
+                    seen.add(taskDataVersions.committedVersion(2L));
+                }
+
+                @Override
+                public int getOrder() {
+                    return 0;
+                }
+            });
+        });
+
+        // Assert
+        assertEquals(5L, seen.get(0));
+        assertNull(seen.get(1));
+        assertNull(taskDataVersions.committedVersion(1L));
+    }
+
+    @Test
+    @DisplayName("Should issue different strong ETags for different users and queries")
+    void eTag_ShouldDependOnUserAndVariant() {
+        // Act
+        String tag = taskDataVersions.eTag(1L, "/api/tasks?limit=10");
+
+        // Assert
+        assertTrue(tag.startsWith("\"") && tag.endsWith("\""));
+        assertEquals(tag, taskDataVersions.eTag(1L, "/api/tasks?limit=10"));
+        assertNotEquals(tag, taskDataVersions.eTag(1L, "/api/tasks?limit=20"));
+        assertNotEquals(tag, taskDataVersions.eTag(2L, "/api/tasks?limit=10"));
+    }
+}
@@ -0,0 +1,204 @@
+package com.tasktracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.dto.ExportFormat;
+import com.tasktracker.entity.Task;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.entity.User;
+import com.tasktracker.repository.TaskRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TaskExportService Tests")
+class TaskExportServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private TaskExportService taskExportService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = User.builder()
+                .id(1L)
+                .name("Test User")
+                .email("test@example.com")
+                .password("encodedPassword")
+                .build();
+    }
+
+    private List<Task> tasks(long firstId, int count) {
+        List<Task> tasks = new ArrayList<>();
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 10, 12, 0);
+        for (int i = 0; i < count; i++) {
+            tasks.add(Task.builder()
+                    .id(firstId - i)
+                    .title("Task " + (firstId - i))
+                    .status(TaskStatus.TODO)
+                    .priority(TaskPriority.HIGH)
+                    .createdAt(createdAt.minusMinutes(firstId - i))
+                    .build());
+        }
+        return tasks;
+    }
+
+    @Nested
+    @DisplayName("Excel Export Tests")
+    class ExcelExportTests {
+
+        @Test
+        @DisplayName("Should write every chunk to the workbook")
+        void writeExcel_WithSeveralChunks_ShouldWriteAllRows() throws Exception {
+            // Arrange
+            List<Task> firstChunk = tasks(1500, 1000);
+            Task last = firstChunk.get(999);
+            when(taskRepository.searchTasksFirstPage(eq(testUser), isNull(), isNull(), isNull(), any(Pageable.class)))
+                    .thenReturn(firstChunk);
+            when(taskRepository.searchTasksAfter(eq(testUser), isNull(), isNull(), isNull(),
+                    eq(last.getCreatedAt()), eq(last.getId()), any(Pageable.class)))
+                    .thenReturn(tasks(500, 500));
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            // Act
+            long rowCount = taskExportService.writeExcel(testUser, null, null, null, outputStream);
+
+            // Assert
+            assertEquals(1500, rowCount);
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+                Sheet sheet = workbook.getSheet("Tasks");
+                assertEquals(1500, sheet.getLastRowNum());
+                assertEquals("ID", sheet.getRow(0).getCell(0).getStringCellValue());
+                assertEquals(1500, (long) sheet.getRow(1).getCell(0).getNumericCellValue());
+                assertEquals("Task 1", sheet.getRow(1500).getCell(1).getStringCellValue());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Streaming Export Tests")
+    class StreamingExportTests {
+
+        @Test
+        @DisplayName("Should quote CSV values containing separators")
+        void writeCsv_WithSpecialCharacters_ShouldQuoteValues() throws Exception {
+            // Arrange
+            Task task = tasks(7, 1).get(0);
+            task.setTitle("Buy milk, eggs");
+            task.setDescription("Say \"hi\"\nthen leave");
+            when(taskRepository.streamTasks(testUser, null, null, null)).thenReturn(Stream.of(task));
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            // Act
+            long rowCount = taskExportService.writeCsv(testUser, null, null, null, outputStream);
+
+            // Assert
+            assertEquals(1, rowCount);
+            String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\r\n");
+            assertEquals("ID,Title,Description,Status,Priority,Created At,Updated At,Due Date", lines[0]);
+            assertTrue(lines[1].startsWith("7,\"Buy milk, eggs\",\"Say \"\"hi\"\"\nthen leave\",TODO,HIGH,"));
+            verify(entityManager).detach(task);
+        }
+
+        @Test
+        @DisplayName("Should write one JSON object per line")
+        void writeNdjson_WithTasks_ShouldWriteOneObjectPerLine() throws Exception {
+            // Arrange
+            when(taskRepository.streamTasks(testUser, "x", TaskStatus.TODO, null))
+                    .thenReturn(tasks(2, 2).stream());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            // Act
+            long rowCount = taskExportService.writeNdjson(testUser, "x", TaskStatus.TODO, null, outputStream);
+
+            // Assert
+            assertEquals(2, rowCount);
+            String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(2, lines.length);
+            assertEquals(2, objectMapper.readTree(lines[0]).get("id").asLong());
+            assertEquals("HIGH", objectMapper.readTree(lines[1]).get("priority").asText());
+            assertTrue(objectMapper.readTree(lines[1]).get("dueDate").isNull());
+        }
+    }
+
+    @Nested
+    @DisplayName("Export Metrics Tests")
+    class ExportMetricsTests {
+
+        @Test
+        @DisplayName("Should record rows, bytes and duration per format")
+        void write_WithTasks_ShouldRecordExportMetrics() throws Exception {
+            // Arrange
+            when(taskRepository.streamTasks(testUser, null, null, null)).thenReturn(tasks(3, 3).stream());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            // Act
+            long rowCount = taskExportService.write(ExportFormat.CSV, testUser, null, null, null, outputStream);
+
+            // Assert
+            assertEquals(3, rowCount);
+            assertEquals(3, meterRegistry.get("tasks.export.rows").tag("format", "CSV").summary().totalAmount());
+            assertEquals(outputStream.size(),
+                    meterRegistry.get("tasks.export.size").tag("format", "CSV").summary().totalAmount());
+            assertEquals(1, meterRegistry.get("tasks.export.duration")
+                    .tags("format", "CSV", "outcome", "success").timer().count());
+        }
+
+        @Test
+        @DisplayName("Should time failed exports without recording a size")
+        void write_WhenRepositoryFails_ShouldRecordErrorOutcome() {
+            // Arrange
+            when(taskRepository.streamTasks(testUser, null, null, null)).thenThrow(new IllegalStateException("down"));
+
+            // Act & Assert
+            assertThrows(IllegalStateException.class, () ->
+                    taskExportService.write(ExportFormat.NDJSON, testUser, null, null, null, new ByteArrayOutputStream()));
+            assertEquals(1, meterRegistry.get("tasks.export.duration")
+                    .tags("format", "NDJSON", "outcome", "error").timer().count());
+            assertNull(meterRegistry.find("tasks.export.size").summary());
+        }
+    }
+}
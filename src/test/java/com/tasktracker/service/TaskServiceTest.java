@@ -0,0 +1,534 @@
+package com.tasktracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tasktracker.dto.BulkTaskResponse;
+import com.tasktracker.dto.TaskChanges;
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.dto.TaskField;
+import com.tasktracker.dto.TaskPage;
+import com.tasktracker.entity.Task;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.entity.TaskTombstone;
+import com.tasktracker.entity.User;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.exception.SyncTokenExpiredException;
+import com.tasktracker.exception.UserMovingException;
+import com.tasktracker.repository.TaskRepository;
+import com.tasktracker.repository.TaskTombstoneRepository;
+import com.tasktracker.search.TaskSearchIndex;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TaskService Tests")
+class TaskServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Mock
+    private TaskSearchIndex taskSearchIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @InjectMocks
+    private TaskService taskService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = User.builder()
+                .id(1L)
+                .name("Test User")
+                .email("test@example.com")
+                .password("encodedPassword")
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(testUser, null, testUser.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private List<Task> tasks(int count, LocalDateTime newest) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(Task.builder()
+                    .id((long) (count - i))
+                    .title("Task " + i)
+                    .status(TaskStatus.TODO)
+                    .priority(TaskPriority.MEDIUM)
+                    .createdAt(newest.minusMinutes(i))
+                    .build());
+        }
+        return tasks;
+    }
+
+    @Nested
+    @DisplayName("Pagination Tests")
+    class PaginationTests {
+
+        @Test
+        @DisplayName("Should return next cursor when more rows exist")
+        void getTasksPage_WithMoreRows_ShouldReturnCursor() {
+            // Arrange
+            LocalDateTime newest = LocalDateTime.of(2024, 1, 10, 12, 0);
+            when(taskRepository.findFirstPageByUser(eq(testUser), any(Pageable.class)))
+                    .thenReturn(tasks(3, newest));
+
+            // Act
+            TaskPage page = taskService.getTasksPage(null, 2);
+
+            // Assert
+            assertEquals(2, page.getItems().size());
+            assertNotNull(page.getNextCursor());
+
+            // Verify one extra row was requested
+            ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+            verify(taskRepository).findFirstPageByUser(eq(testUser), pageableCaptor.capture());
+            assertEquals(3, pageableCaptor.getValue().getPageSize());
+        }
+
+        @Test
+        @DisplayName("Should continue after the last row of the previous page")
+        void getTasksPage_WithCursor_ShouldQueryAfterLastRow() {
+            // Arrange
+            LocalDateTime newest = LocalDateTime.of(2024, 1, 10, 12, 0);
+            List<Task> firstPage = tasks(3, newest);
+            when(taskRepository.findFirstPageByUser(eq(testUser), any(Pageable.class))).thenReturn(firstPage);
+            String cursor = taskService.getTasksPage(null, 2).getNextCursor();
+
+            Task last = firstPage.get(1);
+            when(taskRepository.findPageByUserAfter(eq(testUser), eq(last.getCreatedAt()), eq(last.getId()), any(Pageable.class)))
+                    .thenReturn(List.of(firstPage.get(2)));
+
+            // Act
+            TaskPage page = taskService.getTasksPage(cursor, 2);
+
+            // Assert
+            assertEquals(1, page.getItems().size());
+            assertNull(page.getNextCursor());
+        }
+
+        @Test
+        @DisplayName("Should page overdue tasks by due date and continue after the last one")
+        void getOverdueTasks_WithMoreRows_ShouldContinueAfterLastDueDate() {
+            // Arrange
+            LocalDateTime due = LocalDateTime.of(2024, 1, 10, 12, 0);
+            List<Task> overdue = tasks(3, due);
+            overdue.forEach(task -> task.setDueDate(task.getCreatedAt()));
+            when(taskRepository.findOpenDueBefore(eq(1L), any(LocalDateTime.class), any(Pageable.class)))
+                    .thenReturn(overdue);
+            TaskPage first = taskService.getOverdueTasks(null, 2);
+
+            Task last = overdue.get(1);
+            when(taskRepository.findOpenDueAfter(eq(1L), eq(last.getDueDate()), eq(last.getId()),
+                    any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(overdue.get(2)));
+
+            // Act
+            TaskPage second = taskService.getOverdueTasks(first.getNextCursor(), 2);
+
+            // Assert
+            assertEquals(2, first.getItems().size());
+            assertEquals(1, second.getItems().size());
+            assertNull(second.getNextCursor());
+        }
+
+        @Test
+        @DisplayName("Should reject a malformed cursor")
+        void getTasksPage_WithInvalidCursor_ShouldThrowException() {
+            // Act & Assert
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> taskService.getTasksPage("not-a-cursor", 10));
+
+            assertEquals("Invalid cursor", exception.getMessage());
+            verifyNoInteractions(taskRepository);
+        }
+
+        @Test
+        @DisplayName("Should reject a search cursor whose offset would overflow the index window")
+        void searchTasksPage_WithOverflowingOffset_ShouldThrowException() {
+            // Arrange
+            when(taskSearchIndex.isReady()).thenReturn(true);
+            String cursor = new RankCursor(Integer.MAX_VALUE - 5).encode();
+
+            // Act & Assert
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> taskService.searchTasksPage("report", null, null, cursor, 10));
+
+            assertEquals("Invalid cursor", exception.getMessage());
+            verify(taskSearchIndex, never()).search(any(), any(), any(), any(), anyInt(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should cap the page size")
+        void searchTasksPage_WithHugeLimit_ShouldCapPageSize() {
+            // Arrange
+            when(taskRepository.searchTasksFirstPage(eq(testUser), eq("x"), isNull(), isNull(), any(Pageable.class)))
+                    .thenReturn(List.of());
+
+            // Act
+            TaskPage page = taskService.searchTasksPage("x", null, null, null, 100_000);
+
+            // Assert
+            assertTrue(page.getItems().isEmpty());
+            ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+            verify(taskRepository).searchTasksFirstPage(eq(testUser), eq("x"), isNull(), isNull(), pageableCaptor.capture());
+            assertEquals(501, pageableCaptor.getValue().getPageSize());
+        }
+    }
+
+    @Nested
+    @DisplayName("Sparse Fieldset Tests")
+    class SparseFieldsetTests {
+
+        @Test
+        @DisplayName("Should page through projected rows without loading entities")
+        void getTasksPage_WithFields_UsesProjection() {
+            // Arrange
+            Set<TaskField> fields = TaskField.parse("title,status");
+            LocalDateTime newest = LocalDateTime.of(2024, 1, 1, 12, 0);
+            List<TaskDTO> rows = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                rows.add(TaskDTO.builder().id(3L - i).title("Task " + i).createdAt(newest.minusMinutes(i)).build());
+            }
+            when(taskRepository.findProjected(testUser, fields, null, null, null, null, null, 3)).thenReturn(rows);
+
+            // Act
+            TaskPage page = taskService.getTasksPage(null, 2, fields);
+
+            // Assert
+            assertEquals(2, page.getItems().size());
+            assertNotNull(page.getNextCursor());
+            verify(taskRepository, never()).findFirstPageByUser(any(), any());
+
+            // Act - the cursor continues after the last projected row
+            taskService.getTasksPage(page.getNextCursor(), 2, fields);
+
+            // Assert
+            verify(taskRepository).findProjected(testUser, fields, null, null, null, newest.minusMinutes(1), 2L, 3);
+        }
+
+        @Test
+        @DisplayName("Should reject unknown fields")
+        void parse_UnknownField_ThrowsException() {
+            // Act & Assert
+            assertNull(TaskField.parse(" "));
+            assertEquals(Set.of(TaskField.ID, TaskField.DESCRIPTION_PREVIEW), TaskField.parse("id, descriptionPreview"));
+            assertThrows(IllegalArgumentException.class, () -> TaskField.parse("title,password"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Bulk Tests")
+    class BulkTests {
+
+        @Test
+        @DisplayName("Should save valid items in one batch and report invalid ones per item")
+        @SuppressWarnings("unchecked")
+        void createTasks_MixedItems_ReportsPerItemResults() {
+            // Arrange
+            List<TaskDTO> items = List.of(
+                    TaskDTO.builder().title("First").build(),
+                    TaskDTO.builder().title("").build(),
+                    TaskDTO.builder().title("Third").priority(TaskPriority.HIGH).build());
+            when(taskRepository.saveAll(any())).thenAnswer(invocation -> {
+                List<Task> saved = new ArrayList<>((List<Task>) invocation.getArgument(0));
+                for (int i = 0; i < saved.size(); i++) {
+                    saved.get(i).setId(100L + i);
+                }
+                return saved;
+            });
+
+            // Act
+            BulkTaskResponse response = taskService.createTasks(items);
+
+            // Assert
+            ArgumentCaptor<List<Task>> captor = ArgumentCaptor.forClass(List.class);
+            verify(taskRepository).saveAll(captor.capture());
+            assertEquals(2, captor.getValue().size());
+            assertEquals(2, response.getSucceeded());
+            assertEquals(1, response.getFailed());
+            assertEquals(201, response.getResults().get(0).getStatus());
+            assertEquals(100L, response.getResults().get(0).getId());
+            assertEquals(400, response.getResults().get(1).getStatus());
+            assertNotNull(response.getResults().get(1).getError());
+            assertEquals(101L, response.getResults().get(2).getId());
+            assertEquals(TaskPriority.HIGH, response.getResults().get(2).getTask().getPriority());
+            verify(eventPublisher, times(2)).publishEvent(any(TaskChangedEvent.class));
+        }
+
+        @Test
+        @DisplayName("Should load all items with one query and report missing ones as not found")
+        void updateTasks_MissingItem_ReportsNotFound() {
+            // Arrange
+            Task existing = tasks(1, LocalDateTime.now()).get(0);
+            when(taskRepository.findByUserAndIdIn(eq(testUser), any())).thenReturn(List.of(existing));
+            List<TaskDTO> items = List.of(
+                    TaskDTO.builder().id(existing.getId()).title("Renamed").status(TaskStatus.DONE).build(),
+                    TaskDTO.builder().id(42L).title("Missing").build(),
+                    TaskDTO.builder().title("No id").build());
+
+            // Act
+            BulkTaskResponse response = taskService.updateTasks(items);
+
+            // Assert
+            verify(taskRepository, times(1)).findByUserAndIdIn(eq(testUser), any());
+            verify(taskRepository).flush();
+            assertEquals("Renamed", existing.getTitle());
+            assertEquals(TaskStatus.DONE, existing.getStatus());
+            assertEquals(200, response.getResults().get(0).getStatus());
+            assertEquals(404, response.getResults().get(1).getStatus());
+            assertEquals(400, response.getResults().get(2).getStatus());
+        }
+
+        @Test
+        @DisplayName("Should delete only the user's tasks in one batch")
+        void deleteTasks_DeletesFoundIdsOnly() {
+            // Arrange
+            List<Task> existing = tasks(2, LocalDateTime.now());
+            when(taskRepository.findByUserAndIdIn(eq(testUser), any())).thenReturn(existing);
+
+            // Act
+            BulkTaskResponse response = taskService.deleteTasks(List.of(1L, 2L, 3L));
+
+            // Assert
+            verify(taskRepository).deleteAll(argThat(tasks -> ((Collection<?>) tasks).size() == 2));
+            verify(taskTombstoneRepository).saveAll(argThat(tombstones -> ((List<?>) tombstones).size() == 2));
+            assertEquals(2, response.getSucceeded());
+            assertEquals(404, response.getResults().get(2).getStatus());
+            verify(eventPublisher, times(2)).publishEvent(any(TaskChangedEvent.class));
+        }
+
+        @Test
+        @DisplayName("Should reject batches above the limit")
+        void createTasks_TooManyItems_ThrowsException() {
+            // Arrange
+            List<TaskDTO> items = new ArrayList<>();
+            for (int i = 0; i < 501; i++) {
+                items.add(TaskDTO.builder().title("Task " + i).build());
+            }
+
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> taskService.createTasks(items));
+            verifyNoInteractions(taskRepository);
+        }
+
+        @Test
+        @DisplayName("Should refuse writes while the user is moved to another shard")
+        void createTasks_WhileMoving_ThrowsException() {
+            // Arrange
+            testUser.setMoving(true);
+            List<TaskDTO> items = List.of(TaskDTO.builder().title("Task").build());
+
+            // Act & Assert
+            assertThrows(UserMovingException.class, () -> taskService.createTasks(items));
+            verifyNoInteractions(taskRepository, eventPublisher);
+        }
+    }
+
+    @Nested
+    @DisplayName("Patch Tests")
+    class PatchTests {
+
+        private Task existing;
+
+        @BeforeEach
+        void setUp() {
+            existing = tasks(1, LocalDateTime.of(2024, 3, 1, 9, 0)).get(0);
+            existing.setDescription("Long description");
+            existing.setDueDate(LocalDateTime.of(2024, 3, 8, 9, 0));
+            existing.setUser(testUser);
+        }
+
+        @Test
+        @DisplayName("Should not patch another user's task")
+        void patchTask_OtherUsersTask_ThrowsNotFound() throws Exception {
+            // Arrange
+            existing.setUser(User.builder().id(2L).email("other@example.com").build());
+            when(taskRepository.findById(existing.getId())).thenReturn(Optional.of(existing));
+
+            // Act & Assert
+            assertThrows(EntityNotFoundException.class,
+                    () -> taskService.patchTask(existing.getId(), objectMapper.readTree("{\"status\":\"DONE\"}")));
+            verify(taskRepository, never()).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("Should change only the fields present in the patch")
+        void patchTask_StatusOnly_KeepsOtherFields() throws Exception {
+            // Arrange
+            when(taskRepository.findById(existing.getId())).thenReturn(Optional.of(existing));
+            when(taskRepository.saveAndFlush(existing)).thenReturn(existing);
+
+            // Act
+            TaskDTO result = taskService.patchTask(existing.getId(), objectMapper.readTree("{\"status\":\"DONE\"}"));
+
+            // Assert
+            assertEquals(TaskStatus.DONE, result.getStatus());
+            assertEquals("Long description", existing.getDescription());
+            assertEquals(LocalDateTime.of(2024, 3, 8, 9, 0), existing.getDueDate());
+            ArgumentCaptor<TaskChangedEvent> captor = ArgumentCaptor.forClass(TaskChangedEvent.class);
+            verify(eventPublisher).publishEvent(captor.capture());
+            assertEquals(TaskStatus.TODO, captor.getValue().previous().getStatus());
+        }
+
+        @Test
+        @DisplayName("Should clear nullable fields set to null and skip no-op patches")
+        void patchTask_NullAndUnchangedValues_ClearOrSkip() throws Exception {
+            // Arrange
+            when(taskRepository.findById(existing.getId())).thenReturn(Optional.of(existing));
+            when(taskRepository.saveAndFlush(existing)).thenReturn(existing);
+
+            // Act
+            taskService.patchTask(existing.getId(), objectMapper.readTree("{\"description\":null,\"dueDate\":null}"));
+            taskService.patchTask(existing.getId(), objectMapper.readTree("{\"title\":\"Task 0\"}"));
+
+            // Assert
+            assertNull(existing.getDescription());
+            assertNull(existing.getDueDate());
+            verify(taskRepository, times(1)).saveAndFlush(existing);
+            verify(eventPublisher, times(1)).publishEvent(any(TaskChangedEvent.class));
+        }
+
+        @Test
+        @DisplayName("Should reject read-only, unknown and required-null fields before loading the task")
+        void patchTask_InvalidFields_ThrowsException() throws Exception {
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskService.patchTask(1L, objectMapper.readTree("{\"id\":7}")));
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskService.patchTask(1L, objectMapper.readTree("{\"colour\":\"red\"}")));
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskService.patchTask(1L, objectMapper.readTree("{\"title\":null}")));
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskService.patchTask(1L, objectMapper.readTree("[]")));
+            verifyNoInteractions(taskRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Sync Tests")
+    class SyncTests {
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(taskService, "commitLag", Duration.ofSeconds(30));
+            ReflectionTestUtils.setField(taskService, "tombstoneTtl", Duration.ofDays(30));
+        }
+
+        private TaskTombstone tombstone(Long taskId, LocalDateTime deletedAt) {
+            return TaskTombstone.builder().taskId(taskId).userId(testUser.getId()).deletedAt(deletedAt).build();
+        }
+
+        @Test
+        @DisplayName("Should merge changed tasks and tombstones in change order and advance to the horizon")
+        void getChanges_LastPage_MergesAndAdvancesToHorizon() {
+            // Arrange
+            LocalDateTime since = LocalDateTime.now().minusHours(2);
+            Task updated = tasks(1, since).get(0);
+            updated.setUpdatedAt(since.plusMinutes(20));
+            String token = new ChangeToken(since, 7L, since).encode();
+            when(taskRepository.findChangedAfter(eq(testUser), eq(since), eq(7L), any(Pageable.class)))
+                    .thenReturn(List.of(updated));
+            when(taskTombstoneRepository.findDeletedAfter(eq(1L), eq(since), eq(7L), any(Pageable.class)))
+                    .thenReturn(List.of(tombstone(3L, since.plusMinutes(10)), tombstone(4L, since.plusMinutes(30))));
+
+            // Act
+            TaskChanges changes = taskService.getChanges(token, 10);
+
+            // Assert
+            assertEquals(List.of(updated.getId()), changes.getChanged().stream().map(TaskDTO::getId).toList());
+            assertEquals(List.of(3L, 4L), changes.getDeleted());
+            assertFalse(changes.isHasMore());
+            ChangeToken next = ChangeToken.decode(changes.getNextToken());
+            assertTrue(next.changedAt().isAfter(since.plusMinutes(30)));
+            assertTrue(next.changedAt().isBefore(LocalDateTime.now().minusSeconds(29)));
+        }
+
+        @Test
+        @DisplayName("Should stop a full page at the last change it returned")
+        void getChanges_FullPage_ContinuesFromLastChange() {
+            // Arrange
+            LocalDateTime since = LocalDateTime.now().minusHours(2);
+            List<Task> changed = tasks(3, since);
+            for (int i = 0; i < changed.size(); i++) {
+                changed.get(i).setUpdatedAt(since.plusMinutes(i * 2 + 1));
+            }
+            when(taskRepository.findChangedAfter(eq(testUser), eq(since), eq(0L), any(Pageable.class)))
+                    .thenReturn(changed);
+            when(taskTombstoneRepository.findDeletedAfter(eq(1L), eq(since), eq(0L), any(Pageable.class)))
+                    .thenReturn(List.of(tombstone(9L, since.plusMinutes(2))));
+
+            // Act
+            TaskChanges changes = taskService.getChanges(new ChangeToken(since, 0L, since).encode(), 2);
+
+            // Assert
+            assertTrue(changes.isHasMore());
+            assertEquals(1, changes.getChanged().size());
+            assertEquals(List.of(9L), changes.getDeleted());
+            ChangeToken next = ChangeToken.decode(changes.getNextToken());
+            assertEquals(since.plusMinutes(2), next.changedAt());
+            assertEquals(9L, next.id());
+        }
+
+        @Test
+        @DisplayName("Should reject tokens older than the tombstone retention")
+        void getChanges_ExpiredToken_ThrowsException() {
+            // Arrange
+            LocalDateTime old = LocalDateTime.now().minusDays(31);
+            String token = new ChangeToken(old, 1L, old).encode();
+
+            // Act & Assert
+            assertThrows(SyncTokenExpiredException.class, () -> taskService.getChanges(token, 10));
+            assertThrows(IllegalArgumentException.class, () -> taskService.getChanges("not-a-token", 10));
+            verifyNoInteractions(taskRepository);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.tasktracker.stats;
+
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.dto.TaskStatsDTO;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TaskCounters Tests")
+class TaskCountersTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private static TaskCounters loaded(List<TaskCount> counts, List<LocalDateTime> openDueDates) {
+        TaskCounters counters = new TaskCounters(Duration.ofHours(1));
+        counters.startLoad();
+        counters.finishLoad(counts, openDueDates, 0, NOW);
+        counters.endLoad();
+        return counters;
+    }
+
+    private static TaskDTO task(TaskStatus status, LocalDateTime dueDate) {
+        return TaskDTO.builder().status(status).priority(TaskPriority.MEDIUM).dueDate(dueDate).build();
+    }
+
+    @Test
+    @DisplayName("Should move tasks into due soon and then overdue as time passes")
+    void snapshot_AsTimePasses_ShouldMoveDueTasks() {
+        // Arrange
+        TaskCounters counters = loaded(List.of(new TaskCount(TaskStatus.TODO, TaskPriority.MEDIUM, 2)),
+                List.of(NOW.plusMinutes(30), NOW.plusHours(3)));
+
+        // Act
+        TaskStatsDTO atStart = counters.snapshot(NOW);
+        TaskStatsDTO later = counters.snapshot(NOW.plusHours(2).plusMinutes(30));
+        TaskStatsDTO muchLater = counters.snapshot(NOW.plusHours(4));
+
+        // Assert
+        assertEquals(List.of(0L, 1L), List.of(atStart.getOverdue(), atStart.getDueSoon()));
+        assertEquals(List.of(1L, 1L), List.of(later.getOverdue(), later.getDueSoon()));
+        assertEquals(List.of(2L, 0L), List.of(muchLater.getOverdue(), muchLater.getDueSoon()));
+    }
+
+    @Test
+    @DisplayName("Should count changes against the window they fall in")
+    void add_AfterSweep_ShouldCountByDueDate() {
+        // Arrange
+        TaskCounters counters = loaded(List.of(), List.of());
+        counters.snapshot(NOW.plusHours(1));
+
+        // Act
+        counters.change(null, task(TaskStatus.TODO, NOW.plusMinutes(10)), 1L);
+        counters.change(null, task(TaskStatus.TODO, NOW.plusMinutes(90)), 2L);
+        counters.change(null, task(TaskStatus.DONE, NOW.plusMinutes(10)), 3L);
+        counters.change(task(TaskStatus.TODO, NOW.plusMinutes(90)), task(TaskStatus.TODO, NOW.plusHours(3)), 4L);
+        TaskStatsDTO stats = counters.snapshot(NOW.plusHours(1));
+
+        // Assert
+        assertEquals(3, stats.getTotal());
+        assertEquals(1, stats.getOverdue());
+        assertEquals(0, stats.getDueSoon());
+        assertTrue(counters.matches(loaded(
+                List.of(new TaskCount(TaskStatus.TODO, TaskPriority.MEDIUM, 2),
+                        new TaskCount(TaskStatus.DONE, TaskPriority.MEDIUM, 1)),
+                List.of(NOW.plusMinutes(10), NOW.plusHours(3))), NOW.plusHours(1)));
+    }
+}
@@ -0,0 +1,167 @@
+package com.tasktracker.stats;
+
+import com.tasktracker.datasource.ShardDirectory;
+import com.tasktracker.dto.TaskDTO;
+import com.tasktracker.dto.TaskStatsDTO;
+import com.tasktracker.entity.TaskPriority;
+import com.tasktracker.entity.TaskStatus;
+import com.tasktracker.event.TaskChangedEvent;
+import com.tasktracker.repository.TaskRepository;
+import com.tasktracker.service.TaskDataVersions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TaskStatsService Tests")
+class TaskStatsServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ShardDirectory shardDirectory;
+
+    @Mock
+    private TaskDataVersions taskDataVersions;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskStatsService taskStatsService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        taskStatsService = new TaskStatsService(taskRepository, shardDirectory, meterRegistry, taskDataVersions,
+                transactionManager);
+        ReflectionTestUtils.setField(taskStatsService, "dueSoon", Duration.ofHours(24));
+        ReflectionTestUtils.setField(taskStatsService, "maxUsers", 100L);
+        taskStatsService.init();
+    }
+
+    private TaskDTO task(Long id, TaskStatus status, TaskPriority priority, LocalDateTime dueDate) {
+        return TaskDTO.builder().id(id).title("Task " + id).status(status).priority(priority).dueDate(dueDate).build();
+    }
+
+    @Test
+    @DisplayName("Should load counters once and keep them current from task changes")
+    void getStats_AfterChanges_ShouldNotQueryAgain() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        when(taskRepository.countByStatusAndPriority(1L)).thenReturn(List.of(
+                new TaskCount(TaskStatus.TODO, TaskPriority.HIGH, 2),
+                new TaskCount(TaskStatus.DONE, TaskPriority.LOW, 1)));
+        when(taskRepository.findOpenDueDates(1L)).thenReturn(List.of(now.minusDays(1), now.plusHours(2)));
+        when(taskDataVersions.committedVersion(1L)).thenReturn(1L, 2L, 3L);
+        taskStatsService.getStats(1L);
+
+        // Act
+        TaskDTO created = task(10L, TaskStatus.TODO, TaskPriority.MEDIUM, now.plusHours(3));
+        taskStatsService.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 1L, created));
+        TaskDTO done = task(10L, TaskStatus.DONE, TaskPriority.MEDIUM, now.plusHours(3));
+        taskStatsService.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, 1L, done, created));
+        taskStatsService.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.DELETED, 1L,
+                task(11L, TaskStatus.TODO, TaskPriority.HIGH, null)));
+        TaskStatsDTO stats = taskStatsService.getStats(1L);
+
+        // Assert
+        assertEquals(3, stats.getTotal());
+        assertEquals(1, stats.getByStatus().get(TaskStatus.TODO));
+        assertEquals(2, stats.getByStatus().get(TaskStatus.DONE));
+        assertEquals(1, stats.getByStatusAndPriority().get(TaskStatus.DONE).get(TaskPriority.MEDIUM));
+        assertEquals(1, stats.getOverdue());
+        assertEquals(1, stats.getDueSoon());
+        verify(taskRepository, times(1)).countByStatusAndPriority(1L);
+    }
+
+    @Test
+    @DisplayName("Should ignore changes for users whose counters are not loaded")
+    void onTaskChanged_UserNotLoaded_ShouldNotQuery() {
+        // Act
+        taskStatsService.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 2L,
+                task(1L, TaskStatus.TODO, TaskPriority.LOW, null)));
+
+        // Assert
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    @DisplayName("Should replace counters that drifted from the database")
+    void reconcile_WithDrift_ShouldReload() {
+        // Arrange
+        when(taskRepository.countByStatusAndPriority(1L))
+                .thenReturn(List.of(new TaskCount(TaskStatus.TODO, TaskPriority.LOW, 1)))
+                .thenReturn(List.of(new TaskCount(TaskStatus.TODO, TaskPriority.LOW, 5)));
+        when(taskRepository.findOpenDueDates(1L)).thenReturn(List.of());
+        when(shardDirectory.shardOf(1L)).thenReturn(0);
+        assertEquals(1, taskStatsService.getStats(1L).getTotal());
+
+        // Act
+        taskStatsService.reconcile();
+
+        // Assert
+        assertEquals(5, taskStatsService.getStats(1L).getTotal());
+        assertEquals(1.0, meterRegistry.counter("tasks.stats.corrections").count());
+    }
+
+    @Test
+    @DisplayName("Should count changes racing the first load once, whether or not the load saw them")
+    void getStats_ChangesDuringLoad_ShouldCountEachOnce() {
+        // Arrange
+        when(taskDataVersions.current(1L)).thenReturn(5L);
+        when(taskDataVersions.committedVersion(1L)).thenReturn(5L, 6L);
+        when(taskRepository.findOpenDueDates(1L)).thenReturn(List.of());
+        when(taskRepository.countByStatusAndPriority(1L)).thenAnswer(invocation -> {
+            // Version 5 committed before the load read, version 6 after
+            taskStatsService.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 1L,
+                    task(10L, TaskStatus.TODO, TaskPriority.LOW, null)));
+            taskStatsService.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 1L,
+                    task(11L, TaskStatus.TODO, TaskPriority.LOW, null)));
+            return List.of(new TaskCount(TaskStatus.TODO, TaskPriority.LOW, 1));
+        });
+
+        // Act
+        TaskStatsDTO stats = taskStatsService.getStats(1L);
+
+        // Assert
+        assertEquals(2, stats.getTotal());
+    }
+
+    @Test
+    @DisplayName("Should not count again a change the reconciling reload already read")
+    void reconcile_ReloadWithCountedChange_ShouldNotCountTwice() {
+        // Arrange
+        when(taskDataVersions.current(1L)).thenReturn(1L, 2L);
+        when(taskRepository.findOpenDueDates(1L)).thenReturn(List.of());
+        when(shardDirectory.shardOf(1L)).thenReturn(0);
+        when(taskRepository.countByStatusAndPriority(1L))
+                .thenReturn(List.of(new TaskCount(TaskStatus.TODO, TaskPriority.LOW, 1)))
+                .thenReturn(List.of(new TaskCount(TaskStatus.TODO, TaskPriority.LOW, 2)));
+        when(taskDataVersions.committedVersion(1L)).thenReturn(2L);
+        taskStatsService.getStats(1L);
+
+        // Act
+        taskStatsService.reconcile();
+        // The write the reload read delivers its after-commit event only now
+        taskStatsService.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 1L,
+                task(10L, TaskStatus.TODO, TaskPriority.LOW, null)));
+
+        // Assert
+        assertEquals(2, taskStatsService.getStats(1L).getTotal());
+    }
+}